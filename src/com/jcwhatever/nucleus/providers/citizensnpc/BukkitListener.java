@@ -25,6 +25,8 @@
 package com.jcwhatever.nucleus.providers.citizensnpc;
 
 import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
+import com.jcwhatever.nucleus.providers.citizensnpc.events.NpcEventType;
 import com.jcwhatever.nucleus.providers.npc.events.NpcClickEvent;
 import com.jcwhatever.nucleus.providers.npc.events.NpcDamageByBlockEvent;
 import com.jcwhatever.nucleus.providers.npc.events.NpcDamageByEntityEvent;
@@ -41,11 +43,14 @@ import com.jcwhatever.nucleus.providers.npc.events.NpcTargetedEvent;
 import org.bukkit.entity.Entity;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDamageByBlockEvent;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.EntityEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 
 import net.citizensnpcs.api.event.EntityTargetNPCEvent;
 import net.citizensnpcs.api.event.NPCClickEvent;
@@ -55,8 +60,27 @@ import net.citizensnpcs.api.event.NPCPushEvent;
 import net.citizensnpcs.api.event.NPCRightClickEvent;
 import net.citizensnpcs.api.event.NPCSpawnEvent;
 
+import javax.annotation.Nullable;
+
 public class BukkitListener implements Listener {
 
+    // The last entity event an NPC was resolved for and the result. Bukkit passes the
+    // same event instance to every handler, i.e. onDamage and onDamageByEntity, so the
+    // NPC is only looked up once per event. Cleared at the end of the tick so the
+    // event and NPC are not retained.
+    private EntityEvent _lastEvent;
+    private Npc _lastNpc;
+    private boolean _isClearScheduled;
+
+    private final Runnable _clearLast = new Runnable() {
+        @Override
+        public void run() {
+            _lastEvent = null;
+            _lastNpc = null;
+            _isClearScheduled = false;
+        }
+    };
+
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     private void onSpawn(NPCSpawnEvent event) {
         Npc npc = CitizensProvider.getInstance().getNpc(event.getNPC());
@@ -86,7 +110,7 @@ public class BukkitListener implements Listener {
         if (event.getEntity().getHealth() > 0.0D)
             return;
 
-        Npc npc = CitizensProvider.getInstance().getNpc(event.getEntity());
+        Npc npc = getNpc(event);
         if (npc == null)
             return;
 
@@ -152,6 +176,13 @@ public class BukkitListener implements Listener {
         event.setCancelled(e.isCancelled());
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onWorldUnload(WorldUnloadEvent event) {
+
+        // remove NPC's whose despawn was not reported
+        CitizensProvider.getInstance().getSpatialIndex().removeWorld(event.getWorld());
+    }
+
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     private void onClick(NPCClickEvent event) {
 
@@ -159,6 +190,9 @@ public class BukkitListener implements Listener {
         if (npc == null)
             return;
 
+        if (!isObserved(npc, NpcEventType.CLICK, NpcClickEvent.getHandlerList()))
+            return;
+
         NpcClickEvent e = new NpcClickEvent(npc, event.getClicker());
         e.setCancelled(event.isCancelled());
 
@@ -177,6 +211,9 @@ public class BukkitListener implements Listener {
         if (npc == null)
             return;
 
+        if (!isObserved(npc, NpcEventType.LEFT_CLICK, NpcLeftClickEvent.getHandlerList()))
+            return;
+
         NpcLeftClickEvent e = new NpcLeftClickEvent(npc, event.getClicker());
         e.setCancelled(event.isCancelled());
 
@@ -195,6 +232,9 @@ public class BukkitListener implements Listener {
         if (npc == null)
             return;
 
+        if (!isObserved(npc, NpcEventType.RIGHT_CLICK, NpcRightClickEvent.getHandlerList()))
+            return;
+
         NpcRightClickEvent e = new NpcRightClickEvent(npc, event.getClicker());
         e.setCancelled(event.isCancelled());
 
@@ -213,6 +253,9 @@ public class BukkitListener implements Listener {
         if (npc == null)
             return;
 
+        if (!isObserved(npc, NpcEventType.ENTITY_TARGET, NpcTargetedEvent.getHandlerList()))
+            return;
+
         NpcTargetedEvent e = new NpcTargetedEvent(npc, event.getEntity());
         e.setCancelled(event.isCancelled());
 
@@ -227,10 +270,13 @@ public class BukkitListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     private void onDamage(EntityDamageEvent event) {
 
-        Npc npc = CitizensProvider.getInstance().getNpc(event.getEntity());
+        Npc npc = getNpc(event);
         if (npc == null)
             return;
 
+        if (!isObserved(npc, NpcEventType.DAMAGE, NpcDamageEvent.getHandlerList()))
+            return;
+
         NpcDamageEvent e = new NpcDamageEvent(npc, event);
         e.setCancelled(event.isCancelled());
 
@@ -245,10 +291,13 @@ public class BukkitListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     private void onDamageByBlock(EntityDamageByBlockEvent event) {
 
-        Npc npc = CitizensProvider.getInstance().getNpc(event.getEntity());
+        Npc npc = getNpc(event);
         if (npc == null)
             return;
 
+        if (!isObserved(npc, NpcEventType.DAMAGE_BY_BLOCK, NpcDamageByBlockEvent.getHandlerList()))
+            return;
+
         NpcDamageByBlockEvent e = new NpcDamageByBlockEvent(npc, event);
         e.setCancelled(event.isCancelled());
 
@@ -263,10 +312,13 @@ public class BukkitListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     private void onDamageByEntity(EntityDamageByEntityEvent event) {
 
-        Npc npc = CitizensProvider.getInstance().getNpc(event.getEntity());
+        Npc npc = getNpc(event);
         if (npc == null)
             return;
 
+        if (!isObserved(npc, NpcEventType.DAMAGE_BY_ENTITY, NpcDamageByEntityEvent.getHandlerList()))
+            return;
+
         NpcDamageByEntityEvent e = new NpcDamageByEntityEvent(npc, event);
         e.setCancelled(event.isCancelled());
 
@@ -281,10 +333,13 @@ public class BukkitListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     private void onDeath(EntityDeathEvent event) {
 
-        Npc npc = CitizensProvider.getInstance().getNpc(event.getEntity());
+        Npc npc = getNpc(event);
         if (npc == null)
             return;
 
+        if (!isObserved(npc, NpcEventType.DEATH, NpcDeathEvent.getHandlerList()))
+            return;
+
         NpcDeathEvent e = new NpcDeathEvent(npc, event);
         Nucleus.getEventManager().callBukkit(this, e);
         npc.onNpcDeath(e);
@@ -297,10 +352,51 @@ public class BukkitListener implements Listener {
         if (npc == null)
             return;
 
+        CitizensProvider.getInstance().getSpatialIndex().markMoved(npc);
+
+        // push events fire continuously while NPC's are crowded
+        if (!isObserved(npc, NpcEventType.PUSH, NpcPushEvent.getHandlerList()))
+            return;
+
         NpcPushEvent e = new NpcPushEvent(npc, event.getCollisionVector());
         e.setCancelled(event.isCancelled());
         Nucleus.getEventManager().callBukkit(this, e);
+        npc.countEvent(NpcEventType.PUSH);
 
         event.setCancelled(e.isCancelled());
     }
+
+    /*
+     * Get the spawned NPC an entity event is for. Entities that are not NPC's are
+     * rejected using the spawned NPC id filter before any map lookup.
+     */
+    @Nullable
+    private Npc getNpc(EntityEvent event) {
+
+        if (event == _lastEvent)
+            return _lastNpc;
+
+        _lastEvent = event;
+        _lastNpc = CitizensProvider.getSpawnedNpcs().get(event.getEntity());
+
+        if (!_isClearScheduled) {
+            _isClearScheduled = true;
+            Scheduler.runTaskLater(Nucleus.getPlugin(), _clearLast);
+        }
+
+        return _lastNpc;
+    }
+
+    /*
+     * Determine if an NPC event is observed. Unobserved events are still
+     * counted so behaviours waiting on the event are woken.
+     */
+    private boolean isObserved(Npc npc, NpcEventType type, HandlerList handlers) {
+
+        if (CitizensProvider.getInstance().getEventObservers().isObserved(npc, type, handlers))
+            return true;
+
+        npc.countEvent(type);
+        return false;
+    }
 }
@@ -28,7 +28,10 @@ import com.jcwhatever.nucleus.Nucleus;
 import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
 import com.jcwhatever.nucleus.providers.Provider;
 import com.jcwhatever.nucleus.providers.citizensnpc.ai.AiRunner;
+import com.jcwhatever.nucleus.providers.citizensnpc.ai.NpcPerception;
+import com.jcwhatever.nucleus.providers.citizensnpc.events.NpcEventObservers;
 import com.jcwhatever.nucleus.providers.citizensnpc.navigator.CitizensNavigatorListener;
+import com.jcwhatever.nucleus.providers.citizensnpc.traits.NpcRespawnCoalescer;
 import com.jcwhatever.nucleus.providers.citizensnpc.traits.NpcTraitRegistry;
 import com.jcwhatever.nucleus.providers.citizensnpc.traits.TraitRegistration;
 import com.jcwhatever.nucleus.providers.citizensnpc.traits.citizens.replaced.TraitReplacer;
@@ -46,10 +49,13 @@ import org.bukkit.plugin.Plugin;
 
 import javax.annotation.Nullable;
 import java.io.File;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides Citizens based NPC support to NucleusFramework NPC api.
@@ -69,14 +75,40 @@ public class CitizensProvider extends Provider implements INpcProvider {
     /**
      * Get the current spawned {@link Npc}'s.
      */
-    public static Collection<Npc> getSpawned() {
-        return new ArrayList<>(_instance._spawned.values());
+    public static List<Npc> getSpawned() {
+        return Collections.unmodifiableList(Arrays.asList(_instance._spawned.snapshot()));
     }
 
-    private final Map<Entity, Npc> _spawned = new WeakHashMap<>(15);
-    private final Map<NPC, Npc> _npcs = new WeakHashMap<>(15);
+    /**
+     * Get the set of spawned {@link Npc}'s.
+     *
+     * <p>Use {@link SpawnedNpcs#snapshot} to iterate without allocation.</p>
+     */
+    public static SpawnedNpcs getSpawnedNpcs() {
+        return _instance._spawned;
+    }
+
+    private final SpawnedNpcs _spawned = new SpawnedNpcs();
+    private final IntNpcMap _npcs = new IntNpcMap(15);
+    private final NpcSpatialIndex _spatialIndex = new NpcSpatialIndex();
     private final NpcTraitRegistry _traits = new NpcTraitRegistry(null);
+    private final AiRunner _aiRunner = new AiRunner();
+    private final NpcPerception _perception = new NpcPerception();
+    private final NpcLookUpdater _lookUpdater = new NpcLookUpdater();
+    private final NpcRespawnCoalescer _respawnCoalescer = new NpcRespawnCoalescer();
+    private final NpcEventObservers _eventObservers = new NpcEventObservers();
+    private final NpcPoolSettings _poolSettings = new NpcPoolSettings();
+    private final ExecutorService _ioExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "CitizensNpcProvider-IO");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
 
+    private NpcPool _sharedPool;
+    private boolean _isPoolShared;
     private File _skinFolder;
 
     public CitizensProvider() {
@@ -126,31 +158,136 @@ public class CitizensProvider extends Provider implements INpcProvider {
         PreCon.notNull(entity);
 
         _spawned.put(entity, npc);
+        _spatialIndex.add(npc, entity);
     }
 
     public void unregisterEntity(Entity entity) {
         PreCon.notNull(entity);
 
+        Npc npc = _spawned.get(entity);
+        if (npc != null)
+            _spatialIndex.remove(npc, entity);
+
         _spawned.remove(entity);
     }
 
     public void registerNpc(Npc npc) {
-        _npcs.put(npc.getHandle(), npc);
+        PreCon.notNull(npc);
+
+        NPC handle = npc.getHandle();
+        _npcs.put(handle.getId(), handle, npc);
     }
 
     public void unregisterNPC(Npc npc) {
-        _npcs.remove(npc.getHandle());
+        PreCon.notNull(npc);
+
+        NPC handle = npc.getHandle();
+        _npcs.remove(handle.getId(), handle);
     }
 
     @Nullable
     public Npc getNpc(NPC npc) {
-        return _npcs.get(npc);
+        return _npcs.get(npc.getId(), npc);
     }
 
     public File getSkinFolder() {
         return _skinFolder;
     }
 
+    /**
+     * Get the chunk grid index of spawned NPC's.
+     */
+    public NpcSpatialIndex getSpatialIndex() {
+        return _spatialIndex;
+    }
+
+    /**
+     * Get the NPC perception settings and stage.
+     */
+    public NpcPerception getPerception() {
+        return _perception;
+    }
+
+    /**
+     * Get the updater that applies throttled NPC look requests.
+     */
+    public NpcLookUpdater getLookUpdater() {
+        return _lookUpdater;
+    }
+
+    /**
+     * Get the coalescer that respawns NPC's once per tick to apply appearance changes.
+     */
+    public NpcRespawnCoalescer getRespawnCoalescer() {
+        return _respawnCoalescer;
+    }
+
+    /**
+     * Get the runner that runs NPC AI every tick.
+     */
+    public AiRunner getAiRunner() {
+        return _aiRunner;
+    }
+
+    /**
+     * Get the global NPC event observer settings used to skip
+     * wrapper events that are not observed.
+     */
+    public NpcEventObservers getEventObservers() {
+        return _eventObservers;
+    }
+
+    /**
+     * Get the {@link NpcPool} settings.
+     *
+     * <p>The settings are used by the shared pool. Registries that do not use
+     * the shared pool copy the settings when they are created.</p>
+     */
+    public NpcPoolSettings getPoolSettings() {
+        return _poolSettings;
+    }
+
+    /**
+     * Determine if new registries lease NPC handles from the shared pool.
+     */
+    public boolean isPoolShared() {
+        return _isPoolShared;
+    }
+
+    /**
+     * Set whether new registries lease NPC handles from the shared pool.
+     *
+     * <p>Registries that are not shared create their own pool, which is
+     * destroyed when the registry is disposed. Pools are not shared by default.</p>
+     *
+     * @param isShared  True to share, false to use a pool per registry.
+     */
+    public void setPoolShared(boolean isShared) {
+        _isPoolShared = isShared;
+    }
+
+    /**
+     * Get the pool shared by all registries.
+     *
+     * <p>The shared pool uses the provider's {@link #getPoolSettings} and is
+     * created when first used.</p>
+     */
+    public NpcPool getSharedPool() {
+        if (_sharedPool == null || _sharedPool.isDisposed())
+            _sharedPool = new NpcPool(NpcPool.SHARED_ID, _poolSettings);
+
+        return _sharedPool;
+    }
+
+    /**
+     * Get the executor used to read and write NPC files off of the main thread.
+     *
+     * <p>Tasks are run one at a time in the order they are submitted.</p>
+     */
+    public ExecutorService getIoExecutor() {
+        return _ioExecutor;
+    }
+
     @Override
     protected void onEnable() {
 
@@ -163,7 +300,14 @@ public class CitizensProvider extends Provider implements INpcProvider {
         Bukkit.getPluginManager().registerEvents(new CitizensNavigatorListener(), Nucleus.getPlugin());
         Bukkit.getPluginManager().registerEvents(new BukkitListener(), Nucleus.getPlugin());
 
-        Scheduler.runTaskRepeat(Nucleus.getPlugin(), 1, 1, new AiRunner());
+        // positions and perception are refreshed before the AI pass
+        Scheduler.runTaskRepeat(Nucleus.getPlugin(), 1, 1, _spatialIndex);
+        Scheduler.runTaskRepeat(Nucleus.getPlugin(), 1, 1, _perception);
+        Scheduler.runTaskRepeat(Nucleus.getPlugin(), 1, 1, _aiRunner);
+
+        // look requests made by AI are applied after the AI pass
+        Scheduler.runTaskRepeat(Nucleus.getPlugin(), 1, 1, _lookUpdater);
+        Scheduler.runTaskRepeat(Nucleus.getPlugin(), 1, 1, _respawnCoalescer);
 
         try {
             TraitReplacer.replaceTraits();
@@ -174,6 +318,27 @@ public class CitizensProvider extends Provider implements INpcProvider {
 
     @Override
     protected void onDisable() {
+
+        // allow queued saves to finish
+        _ioExecutor.shutdown();
+        try {
+            if (!_ioExecutor.awaitTermination(30, TimeUnit.SECONDS))
+                Msg.warning("Timed out waiting for Npc file operations to finish.");
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (_sharedPool != null) {
+            _sharedPool.dispose();
+            _sharedPool = null;
+        }
+
+        _spawned.clear();
+        _spatialIndex.clear();
+        _lookUpdater.clear();
+        _respawnCoalescer.clear();
+        _npcs.clear();
         _instance = null;
     }
 }
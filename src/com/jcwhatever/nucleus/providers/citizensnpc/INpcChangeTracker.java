@@ -0,0 +1,50 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.jcwhatever.nucleus.providers.citizensnpc;
+
+/**
+ * Implemented by the provider's {@link com.jcwhatever.nucleus.providers.npc.INpc}
+ * and {@link com.jcwhatever.nucleus.providers.npc.traits.INpcTraits} implementations
+ * so that NPC traits can report changes to their data.
+ *
+ * <p>Incremental saves only write NPC's that have changed. A trait whose saved
+ * data changes outside of the NPC's own methods must mark the NPC dirty or the
+ * change is not written until the next full save.</p>
+ *
+ * <pre>
+ * {@code
+ * if (getNpc() instanceof INpcChangeTracker)
+ *     ((INpcChangeTracker) getNpc()).markDirty();
+ * }
+ * </pre>
+ */
+public interface INpcChangeTracker {
+
+    /**
+     * Mark the NPC as changed so it is written during the next save.
+     */
+    void markDirty();
+}
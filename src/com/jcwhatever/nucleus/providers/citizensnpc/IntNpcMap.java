@@ -0,0 +1,260 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+
+import javax.annotation.Nullable;
+
+/**
+ * Open addressing hash map of {@link Npc}'s keyed by a primitive int id.
+ *
+ * <p>Each entry also stores the handle object the id was taken from (i.e. the
+ * Bukkit entity or Citizens NPC). Lookups match the handle by identity so that
+ * ids which are only unique within a Citizens registry can share the map.</p>
+ *
+ * <p>Entries are strongly referenced and must be removed explicitly.</p>
+ */
+public class IntNpcMap {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] _keys;
+    private Object[] _handles;
+    private Npc[] _values;
+    private int _mask;
+    private int _size;
+    private int _resizeAt;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity  The initial capacity.
+     */
+    public IntNpcMap(int capacity) {
+        PreCon.greaterThanZero(capacity);
+
+        allocate(tableSize(capacity));
+    }
+
+    /**
+     * Get the number of entries.
+     */
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * Determine if the map is empty.
+     */
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /**
+     * Get the {@link Npc} mapped to an id and handle.
+     *
+     * @param key     The id.
+     * @param handle  The handle the id belongs to.
+     *
+     * @return  The {@link Npc} or null if not found.
+     */
+    @Nullable
+    public Npc get(int key, Object handle) {
+
+        int slot = indexOf(key, handle);
+        return slot == -1 ? null : _values[slot];
+    }
+
+    /**
+     * Map an {@link Npc} to an id and handle.
+     *
+     * @param key     The id.
+     * @param handle  The handle the id belongs to.
+     * @param npc     The {@link Npc}.
+     *
+     * @return  The previously mapped {@link Npc} or null if none.
+     */
+    @Nullable
+    public Npc put(int key, Object handle, Npc npc) {
+        PreCon.notNull(handle);
+        PreCon.notNull(npc);
+
+        int slot = indexOf(key, handle);
+        if (slot != -1) {
+            Npc previous = _values[slot];
+            _values[slot] = npc;
+            return previous;
+        }
+
+        if (_size >= _resizeAt)
+            allocate(_keys.length << 1);
+
+        insert(key, handle, npc);
+        _size++;
+
+        return null;
+    }
+
+    /**
+     * Remove the {@link Npc} mapped to an id and handle.
+     *
+     * @param key     The id.
+     * @param handle  The handle the id belongs to.
+     *
+     * @return  The removed {@link Npc} or null if not found.
+     */
+    @Nullable
+    public Npc remove(int key, Object handle) {
+
+        int slot = indexOf(key, handle);
+        if (slot == -1)
+            return null;
+
+        Npc removed = _values[slot];
+
+        // shift following entries in the probe sequence back so
+        // lookups are not broken by the empty slot.
+        int empty = slot;
+        int current = slot;
+
+        while (true) {
+            current = (current + 1) & _mask;
+
+            if (_values[current] == null)
+                break;
+
+            int home = hash(_keys[current]) & _mask;
+
+            // move the entry if its home slot is not between the empty slot and its slot
+            boolean canMove = empty <= current
+                    ? home <= empty || home > current
+                    : home <= empty && home > current;
+
+            if (canMove) {
+                _keys[empty] = _keys[current];
+                _handles[empty] = _handles[current];
+                _values[empty] = _values[current];
+                empty = current;
+            }
+        }
+
+        _keys[empty] = 0;
+        _handles[empty] = null;
+        _values[empty] = null;
+        _size--;
+
+        return removed;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public void clear() {
+        for (int i = 0; i < _values.length; i++) {
+            _keys[i] = 0;
+            _handles[i] = null;
+            _values[i] = null;
+        }
+        _size = 0;
+    }
+
+    /**
+     * Copy the mapped {@link Npc}'s into a new array.
+     */
+    public Npc[] toArray() {
+
+        Npc[] result = new Npc[_size];
+        int index = 0;
+
+        for (Npc npc : _values) {
+            if (npc != null)
+                result[index++] = npc;
+        }
+
+        return result;
+    }
+
+    private int indexOf(int key, Object handle) {
+
+        int slot = hash(key) & _mask;
+
+        while (_values[slot] != null) {
+
+            if (_keys[slot] == key && _handles[slot] == handle)
+                return slot;
+
+            slot = (slot + 1) & _mask;
+        }
+
+        return -1;
+    }
+
+    private void insert(int key, Object handle, Npc npc) {
+
+        int slot = hash(key) & _mask;
+
+        while (_values[slot] != null)
+            slot = (slot + 1) & _mask;
+
+        _keys[slot] = key;
+        _handles[slot] = handle;
+        _values[slot] = npc;
+    }
+
+    private void allocate(int tableSize) {
+
+        int[] keys = _keys;
+        Object[] handles = _handles;
+        Npc[] values = _values;
+
+        _keys = new int[tableSize];
+        _handles = new Object[tableSize];
+        _values = new Npc[tableSize];
+        _mask = tableSize - 1;
+        _resizeAt = (int)(tableSize * LOAD_FACTOR);
+
+        if (values == null)
+            return;
+
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null)
+                insert(keys[i], handles[i], values[i]);
+        }
+    }
+
+    private static int tableSize(int capacity) {
+        int size = 2;
+        while (size * LOAD_FACTOR < capacity)
+            size <<= 1;
+        return size;
+    }
+
+    // spread sequential ids across the table
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -28,6 +28,9 @@ import com.jcwhatever.nucleus.Nucleus;
 import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
 import com.jcwhatever.nucleus.providers.citizensnpc.ai.BehaviourAgent;
 import com.jcwhatever.nucleus.providers.citizensnpc.ai.NpcGoals;
+import com.jcwhatever.nucleus.providers.citizensnpc.ai.NpcState;
+import com.jcwhatever.nucleus.providers.citizensnpc.events.NpcEventAgents;
+import com.jcwhatever.nucleus.providers.citizensnpc.events.NpcEventType;
 import com.jcwhatever.nucleus.providers.citizensnpc.navigator.NpcNavigator;
 import com.jcwhatever.nucleus.providers.citizensnpc.storage.DataNodeKey;
 import com.jcwhatever.nucleus.providers.citizensnpc.traits.NpcTraits;
@@ -50,7 +53,6 @@ import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.nucleus.utils.coords.LocationUtils;
 import com.jcwhatever.nucleus.utils.observer.script.IScriptUpdateSubscriber;
 import com.jcwhatever.nucleus.utils.observer.script.ScriptUpdateSubscriber;
-import com.jcwhatever.nucleus.utils.observer.update.NamedUpdateAgents;
 import net.citizensnpcs.api.event.DespawnReason;
 import net.citizensnpcs.api.npc.NPC;
 import net.citizensnpcs.trait.CurrentLocation;
@@ -60,7 +62,9 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.WeakHashMap;
@@ -68,7 +72,7 @@ import java.util.WeakHashMap;
 /**
  * {@link INpc} implementation.
  */
-public class Npc implements INpc {
+public class Npc implements INpc, INpcChangeTracker {
 
     private static final Location LOOK_LOCATION = new Location(null, 0, 0, 0);
 
@@ -80,17 +84,26 @@ public class Npc implements INpc {
     private final NpcPool _pool;
     private final NpcNavigator _navigator;
     private final NpcGoals _goals;
+    private final NpcState _state;
+    private final NpcLookController _lookController = new NpcLookController(this);
     private final NpcTraits _traits;
-    private final NamedUpdateAgents _agents = new NamedUpdateAgents();
-    private final Map<BehaviourAgent<?, ?, ?, ?>, NamedUpdateAgents> _behaviourAgents = new WeakHashMap<>(10);
+    private final NpcEventAgents _agents = new NpcEventAgents();
+    private final Map<BehaviourAgent<?, ?, ?, ?>, NpcEventAgents> _behaviourAgents = new WeakHashMap<>(10);
+    private final List<NpcEventAgents> _activeAgents = new ArrayList<>(5);
+    private NpcEventAgents[] _activeSnapshot = new NpcEventAgents[0];
+    private boolean _isActiveChanged;
     private final Location _spawnCache = new Location(null, 0, 0, 0);
+    private final long[] _eventCounts = new long[NpcEventType.size()];
     private Map<String, Object> _meta;
     private boolean _isDisposed;
+    private boolean _isDirty;
+    private long _modCount;
+    private boolean _isIdPersisted;
     private boolean _isSpawned;
     private boolean _hasSpawnLocation;
 
-    // Holds entity reference, otherwise no one else may be holding it (weak references).
-    // Prevents losing entity reference in WeakHashMap in CitizensProvider.
+    // The entity registered in CitizensProvider while spawned. Used to make sure
+    // the entity is unregistered when the NPC is disposed.
     private Entity _currentEntity;
 
     // Store spawn/despawn reasons to fill in functionality missing in Citizens
@@ -112,6 +125,7 @@ public class Npc implements INpc {
 
         _navigator = new NpcNavigator(this, npc.getNavigator());
         _goals = new NpcGoals(this);
+        _state = new NpcState(this);
         _traits = new NpcTraits(this);
         _pool = pool;
     }
@@ -135,6 +149,8 @@ public class Npc implements INpc {
         PreCon.notNull(dataKey);
 
         _isDisposed = false;
+        _isDirty = true;
+        _modCount++;
 
         _lookupName = lookupName;
         _registry = registry;
@@ -185,6 +201,7 @@ public class Npc implements INpc {
     @Override
     public INpc setDisplayName(String name) {
         _npc.setName(name);
+        markDirty();
 
         return this;
     }
@@ -197,6 +214,7 @@ public class Npc implements INpc {
     @Override
     public INpc setDisplayNameVisible(boolean isVisible) {
         _npc.data().setPersistent(NPC.NAMEPLATE_VISIBLE_METADATA, isVisible);
+        markDirty();
         return this;
     }
 
@@ -222,6 +240,7 @@ public class Npc implements INpc {
             assert entity != null;
 
             entity.teleport(location);
+            CitizensProvider.getInstance().getSpatialIndex().markMoved(this);
             return true;
         }
 
@@ -282,6 +301,21 @@ public class Npc implements INpc {
         return _goals;
     }
 
+    /**
+     * Get the controller used to throttle head rotation. Disabled by default.
+     */
+    public NpcLookController getLookController() {
+        return _lookController;
+    }
+
+    /**
+     * Get the state snapshot captured at the start of the NPC's current
+     * or most recent AI pass.
+     */
+    public NpcState getState() {
+        return _state;
+    }
+
     @Override
     public NpcTraits getTraits() {
         return _traits;
@@ -313,6 +347,8 @@ public class Npc implements INpc {
         else {
             _meta.put(key, value);
         }
+
+        markDirty();
     }
 
     @Nullable
@@ -372,6 +408,11 @@ public class Npc implements INpc {
         if (!isSpawned())
             return this;
 
+        if (_lookController.isEnabled()) {
+            _lookController.look(yaw, pitch);
+            return this;
+        }
+
         NMS.look(_npc.getEntity(), yaw, pitch);
 
         return this;
@@ -404,6 +445,11 @@ public class Npc implements INpc {
         if (location.distanceSquared(_npc.getStoredLocation()) <= 0.25)
             return this;
 
+        if (_lookController.isEnabled()) {
+            _lookController.lookLocation(location);
+            return this;
+        }
+
         _npc.faceLocation(location);
 
         return this;
@@ -413,6 +459,35 @@ public class Npc implements INpc {
     public boolean save(IDataNode dataNode) {
         PreCon.notNull(dataNode);
 
+        saveData(dataNode);
+        dataNode.save();
+
+        return true;
+    }
+
+    /**
+     * Write the NPC to a data node without saving the node.
+     *
+     * <p>Clears the dirty flag.</p>
+     *
+     * @param dataNode  The data node to write to.
+     */
+    public void saveData(IDataNode dataNode) {
+        PreCon.notNull(dataNode);
+
+        writeData(dataNode);
+        _isDirty = false;
+    }
+
+    /**
+     * Write the NPC to a data node without saving the node or
+     * changing the dirty flag.
+     *
+     * @param dataNode  The data node to write to.
+     */
+    public void writeData(IDataNode dataNode) {
+        PreCon.notNull(dataNode);
+
         dataNode.set("lookup", _lookupName);
         dataNode.set("name", _npc.getName());
         dataNode.set("uuid", _npc.getUniqueId());
@@ -420,9 +495,60 @@ public class Npc implements INpc {
 
         getTraits().save(dataNode.getNode("traits"));
 
-        dataNode.save();
+        _isIdPersisted = true;
+    }
 
-        return true;
+    /**
+     * Determine if the unique ID of the NPC's handle may be in saved NPC data.
+     *
+     * <p>True if the NPC was loaded with a persisted ID or has been written to a
+     * data node. The handle of such an NPC is destroyed instead of recycled since
+     * loading the saved data would otherwise create a second handle with the same ID.</p>
+     */
+    public boolean isIdPersisted() {
+        return _isIdPersisted;
+    }
+
+    /**
+     * Mark the unique ID of the NPC's handle as persisted.
+     *
+     * <p>For internal use when the NPC is created with a persisted ID.</p>
+     */
+    void markIdPersisted() {
+        _isIdPersisted = true;
+    }
+
+    /**
+     * Determine if the NPC has changed since it was last saved or loaded.
+     */
+    public boolean isDirty() {
+        return _isDirty;
+    }
+
+    @Override
+    public void markDirty() {
+        _isDirty = true;
+        _modCount++;
+    }
+
+    /**
+     * Get the modification count of the NPC. The count is incremented
+     * every time the NPC is marked dirty.
+     *
+     * <p>Used by save targets that track changes independently of
+     * the dirty flag.</p>
+     */
+    public long getModCount() {
+        return _modCount;
+    }
+
+    /**
+     * Clear the dirty flag.
+     *
+     * <p>For internal use after the NPC is loaded from its saved data.</p>
+     */
+    public void clearDirty() {
+        _isDirty = false;
     }
 
     @Override
@@ -439,6 +565,11 @@ public class Npc implements INpc {
 
         despawn(DespawnReason.REMOVAL);
 
+        if (_currentEntity != null) {
+            CitizensProvider.getInstance().unregisterEntity(_currentEntity);
+            _currentEntity = null;
+        }
+
         NpcDisposeEvent event = new NpcDisposeEvent(Npc.this);
         Nucleus.getEventManager().callBukkit(this, event);
 
@@ -447,10 +578,12 @@ public class Npc implements INpc {
         _registry.remove(this);
         _agents.disposeAgents();
 
-        for (NamedUpdateAgents agent : _behaviourAgents.values()) {
+        for (NpcEventAgents agent : _behaviourAgents.values()) {
             agent.disposeAgents();
         }
         _behaviourAgents.clear();
+        _activeAgents.clear();
+        _activeSnapshot = new NpcEventAgents[0];
 
         _traits.dispose();
         _goals.dispose();
@@ -458,6 +591,8 @@ public class Npc implements INpc {
         if (_meta != null)
             _meta.clear();
 
+        _lookController.reset();
+
         _lookupName = null;
         _registry = null;
         _dataKey = null;
@@ -476,7 +611,7 @@ public class Npc implements INpc {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcSpawn").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.SPAWN, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -487,7 +622,7 @@ public class Npc implements INpc {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcDespawn").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.DESPAWN, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -498,7 +633,7 @@ public class Npc implements INpc {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcClick").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.CLICK, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -509,7 +644,7 @@ public class Npc implements INpc {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcRightClick").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.RIGHT_CLICK, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -520,7 +655,7 @@ public class Npc implements INpc {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcLeftClick").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.LEFT_CLICK, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -531,7 +666,7 @@ public class Npc implements INpc {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcEntityTarget").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.ENTITY_TARGET, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -542,7 +677,7 @@ public class Npc implements INpc {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcDamage").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.DAMAGE, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -553,7 +688,7 @@ public class Npc implements INpc {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcDamageByBlock").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.DAMAGE_BY_BLOCK, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -564,7 +699,7 @@ public class Npc implements INpc {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcDamageByEntity").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.DAMAGE_BY_ENTITY, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -575,7 +710,7 @@ public class Npc implements INpc {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcDeath").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.DEATH, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -583,7 +718,7 @@ public class Npc implements INpc {
     public void onNpcSpawn(NpcSpawnEvent event) {
         PreCon.notNull(event);
 
-        updateAgents("onNpcSpawn", event);
+        updateAgents(NpcEventType.SPAWN, event);
 
         if (_registry != null) {
             _registry.onNpcSpawn(event);
@@ -609,7 +744,7 @@ public class Npc implements INpc {
     public void onNpcDespawn(NpcDespawnEvent event) {
         PreCon.notNull(event);
 
-        updateAgents("onNpcDespawn", event);
+        updateAgents(NpcEventType.DESPAWN, event);
 
         if (_registry != null) {
             _registry.onNpcDespawn(event);
@@ -624,7 +759,7 @@ public class Npc implements INpc {
     public void onNpcClick(NpcClickEvent event) {
         PreCon.notNull(event);
 
-        updateAgents("onNpcClick", event);
+        updateAgents(NpcEventType.CLICK, event);
 
         if (_registry != null)
             _registry.onNpcClick(event);
@@ -633,7 +768,7 @@ public class Npc implements INpc {
     public void onNpcRightClick(NpcRightClickEvent event) {
         PreCon.notNull(event);
 
-        updateAgents("onNpcRightClick", event);
+        updateAgents(NpcEventType.RIGHT_CLICK, event);
 
         if (_registry != null)
             _registry.onNpcRightClick(event);
@@ -642,7 +777,7 @@ public class Npc implements INpc {
     public void onNpcLeftClick(NpcLeftClickEvent event) {
         PreCon.notNull(event);
 
-        updateAgents("onNpcLeftClick", event);
+        updateAgents(NpcEventType.LEFT_CLICK, event);
 
         if (_registry != null)
             _registry.onNpcLeftClick(event);
@@ -651,7 +786,7 @@ public class Npc implements INpc {
     public void onNpcEntityTarget(NpcTargetedEvent event) {
         PreCon.notNull(event);
 
-        updateAgents("onNpcEntityTarget", event);
+        updateAgents(NpcEventType.ENTITY_TARGET, event);
 
         if (_registry != null)
             _registry.onNpcEntityTarget(event);
@@ -660,7 +795,7 @@ public class Npc implements INpc {
     public void onNpcDamage(NpcDamageEvent event) {
         PreCon.notNull(event);
 
-        updateAgents("onNpcDamage", event);
+        updateAgents(NpcEventType.DAMAGE, event);
 
         if (_registry != null)
             _registry.onNpcDamage(event);
@@ -669,7 +804,7 @@ public class Npc implements INpc {
     public void onNpcDamageByBlock(NpcDamageByBlockEvent event) {
         PreCon.notNull(event);
 
-        updateAgents("onNpcDamageByBlock", event);
+        updateAgents(NpcEventType.DAMAGE_BY_BLOCK, event);
 
         if (_registry != null)
             _registry.onNpcDamageByBlock(event);
@@ -678,7 +813,7 @@ public class Npc implements INpc {
     public void onNpcDamageByEntity(NpcDamageByEntityEvent event) {
         PreCon.notNull(event);
 
-        updateAgents("onNpcDamageByEntity", event);
+        updateAgents(NpcEventType.DAMAGE_BY_ENTITY, event);
 
         if (_registry != null)
             _registry.onNpcDamageByEntity(event);
@@ -687,13 +822,13 @@ public class Npc implements INpc {
     public void onNpcDeath(NpcDeathEvent event) {
         PreCon.notNull(event);
 
-        updateAgents("onNpcDeath", event);
+        updateAgents(NpcEventType.DEATH, event);
 
         if (_registry != null)
             _registry.onNpcDeath(event);
     }
 
-    public NamedUpdateAgents registerUpdateAgent(BehaviourAgent<?, ?, ?, ?> agent) {
+    public NpcEventAgents registerUpdateAgent(BehaviourAgent<?, ?, ?, ?> agent) {
         PreCon.notNull(agent);
 
         checkDisposed();
@@ -702,7 +837,7 @@ public class Npc implements INpc {
             return _behaviourAgents.get(agent);
         }
 
-        NamedUpdateAgents updateAgents = new NamedUpdateAgents();
+        NpcEventAgents updateAgents = new NpcEventAgents();
 
         _behaviourAgents.put(agent, updateAgents);
 
@@ -710,17 +845,99 @@ public class Npc implements INpc {
     }
 
     public void unregisterUpdateAgent(BehaviourAgent<?, ?, ?, ?> agent) {
-        _behaviourAgents.remove(agent);
+        NpcEventAgents updateAgents = _behaviourAgents.remove(agent);
+        if (updateAgents == null)
+            return;
+
+        updateAgents.disposeAgents();
+
+        if (_activeAgents.remove(updateAgents))
+            _isActiveChanged = true;
+    }
+
+    /**
+     * Set whether a registered behaviour agent is active.
+     *
+     * <p>Events are only dispatched to the subscribers of active agents.
+     * An agent is active while its behaviour is the current behaviour
+     * in its pool.</p>
+     *
+     * @param agent     The behaviour agent.
+     * @param isActive  True if the agent is active, otherwise false.
+     */
+    public void setAgentActive(BehaviourAgent<?, ?, ?, ?> agent, boolean isActive) {
+        PreCon.notNull(agent);
+
+        NpcEventAgents updateAgents = _behaviourAgents.get(agent);
+        if (updateAgents == null)
+            return;
+
+        if (isActive) {
+            if (_activeAgents.contains(updateAgents))
+                return;
+
+            _activeAgents.add(updateAgents);
+        }
+        else if (!_activeAgents.remove(updateAgents)) {
+            return;
+        }
+
+        _isActiveChanged = true;
+    }
+
+    /**
+     * Get the number of times an event has been fired on the NPC.
+     *
+     * <p>Used to wake behaviours waiting on an event.</p>
+     *
+     * @param type  The event type.
+     */
+    public long getEventCount(NpcEventType type) {
+        return _eventCounts[type.ordinal()];
+    }
+
+    /**
+     * Determine if an event type would be observed by a subscriber of the NPC,
+     * one of its active behaviours or its registry.
+     *
+     * <p>Used to skip creating wrapper events that no one is listening to.</p>
+     *
+     * @param type  The event type.
+     */
+    public boolean isObserved(NpcEventType type) {
+
+        int mask = _agents.getSubscriberMask();
+
+        for (NpcEventAgents agents : getActiveAgents()) {
+            mask |= agents.getSubscriberMask();
+        }
+
+        return (mask & type.getMask()) != 0 ||
+                (_registry != null && _registry.hasSubscribers(type));
+    }
+
+    /**
+     * Record that an event was fired on the NPC without notifying subscribers.
+     *
+     * <p>Used when an event is not observed so that behaviours waiting on
+     * the event are still woken.</p>
+     *
+     * @param type  The event type.
+     */
+    public void countEvent(NpcEventType type) {
+        _eventCounts[type.ordinal()]++;
     }
 
-    public void updateAgents(String agentName, Object event) {
-        PreCon.notNullOrEmpty(agentName);
+    public void updateAgents(NpcEventType type, Object event) {
+        PreCon.notNull(type);
         PreCon.notNull(event);
 
-        for (NamedUpdateAgents agents : _behaviourAgents.values()) {
-            agents.update(agentName, event);
+        _eventCounts[type.ordinal()]++;
+
+        for (NpcEventAgents agents : getActiveAgents()) {
+            agents.update(type, event);
         }
-        _agents.update(agentName, event);
+        _agents.update(type, event);
     }
 
     /**
@@ -802,6 +1019,18 @@ public class Npc implements INpc {
         return false;
     }
 
+    // Get a snapshot of the active behaviour agents. A snapshot is used in
+    // case a subscriber changes the current behaviour during iteration.
+    private NpcEventAgents[] getActiveAgents() {
+
+        if (_isActiveChanged) {
+            _activeSnapshot = _activeAgents.toArray(new NpcEventAgents[_activeAgents.size()]);
+            _isActiveChanged = false;
+        }
+
+        return _activeSnapshot;
+    }
+
     private void checkDisposed() {
         if (_isDisposed)
             throw new IllegalStateException("Cannot use a disposed Npc.");
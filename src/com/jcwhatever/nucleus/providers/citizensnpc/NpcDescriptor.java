@@ -0,0 +1,152 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc;
+
+import com.jcwhatever.nucleus.storage.IDataNode;
+import com.jcwhatever.nucleus.utils.PreCon;
+import org.bukkit.entity.EntityType;
+
+import java.util.Map.Entry;
+import java.util.UUID;
+
+/**
+ * Lightweight description of a loaded {@link Npc} that has not been materialized.
+ *
+ * <p>Used by a {@link Registry} in lazy loading mode. The full {@link Npc} is
+ * created from the descriptor the first time it is used.</p>
+ */
+public class NpcDescriptor {
+
+    private final Registry _registry;
+    private final String _lookupName;
+    private final String _name;
+    private final UUID _id;
+    private final EntityType _type;
+    private final IDataNode _dataNode;
+
+    private boolean _isDirty = true;
+
+    /**
+     * Constructor.
+     *
+     * @param registry    The owning registry.
+     * @param lookupName  The NPC lookup name.
+     * @param name        The NPC name.
+     * @param id          The NPC unique ID.
+     * @param type        The NPC entity type.
+     * @param dataNode    The data node the NPC was loaded from.
+     */
+    public NpcDescriptor(Registry registry, String lookupName, String name,
+                         UUID id, EntityType type, IDataNode dataNode) {
+        PreCon.notNull(registry);
+        PreCon.notNullOrEmpty(lookupName);
+        PreCon.notNull(name);
+        PreCon.notNull(id);
+        PreCon.notNull(type);
+        PreCon.notNull(dataNode);
+
+        _registry = registry;
+        _lookupName = lookupName;
+        _name = name;
+        _id = id;
+        _type = type;
+        _dataNode = dataNode;
+    }
+
+    /**
+     * Get the owning registry.
+     */
+    public Registry getRegistry() {
+        return _registry;
+    }
+
+    /**
+     * Get the NPC lookup name.
+     */
+    public String getLookupName() {
+        return _lookupName;
+    }
+
+    /**
+     * Get the NPC name.
+     */
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * Get the NPC unique ID.
+     */
+    public UUID getId() {
+        return _id;
+    }
+
+    /**
+     * Get the NPC entity type.
+     */
+    public EntityType getType() {
+        return _type;
+    }
+
+    /**
+     * Get the data node the NPC was loaded from.
+     */
+    public IDataNode getDataNode() {
+        return _dataNode;
+    }
+
+    /**
+     * Determine if the NPC data has not been written to the
+     * registry's current save target.
+     */
+    public boolean isDirty() {
+        return _isDirty;
+    }
+
+    /**
+     * Set the dirty flag.
+     *
+     * @param isDirty  True if the NPC data needs to be written during the next save.
+     */
+    public void setDirty(boolean isDirty) {
+        _isDirty = isDirty;
+    }
+
+    /**
+     * Write the NPC data to a data node.
+     *
+     * @param dataNode  The data node to write to.
+     */
+    public void writeData(IDataNode dataNode) {
+        PreCon.notNull(dataNode);
+
+        if (dataNode == _dataNode)
+            return;
+
+        for (Entry<String, Object> entry : _dataNode.getAllValues().entrySet()) {
+            dataNode.set(entry.getKey(), entry.getValue());
+        }
+    }
+}
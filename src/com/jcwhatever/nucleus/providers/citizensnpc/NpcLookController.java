@@ -0,0 +1,289 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+import net.citizensnpcs.util.NMS;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+
+/**
+ * Optional controller that throttles and filters an {@link Npc}'s head rotation.
+ *
+ * <p>While enabled, look requests made with {@link Npc#look}, {@link Npc#lookEntity} and
+ * {@link Npc#lookLocation} are not applied immediately. The last request made during a
+ * tick is applied at the end of the tick by {@link NpcLookUpdater}, and only if the
+ * minimum interval has passed since the last applied rotation and the rotation differs
+ * from it by at least the minimum angle.</p>
+ *
+ * <p>Disabled by default.</p>
+ */
+public class NpcLookController {
+
+    private final Npc _npc;
+    private final Location _location = new Location(null, 0, 0, 0);
+
+    private static final float DEFAULT_MIN_ANGLE_DELTA = 2.0f;
+    private static final int DEFAULT_MIN_INTERVAL = 1;
+
+    private boolean _isEnabled;
+    private float _minAngleDelta = DEFAULT_MIN_ANGLE_DELTA;
+    private int _minInterval = DEFAULT_MIN_INTERVAL;
+
+    private boolean _isPending;
+    private float _pendingYaw;
+    private float _pendingPitch;
+
+    private boolean _hasApplied;
+    private float _appliedYaw;
+    private float _appliedPitch;
+    private long _appliedTick;
+
+    private long _requestCount;
+    private long _appliedCount;
+    private long _suppressedCount;
+
+    /**
+     * Constructor.
+     *
+     * @param npc  The NPC the controller is for.
+     */
+    public NpcLookController(Npc npc) {
+        PreCon.notNull(npc);
+
+        _npc = npc;
+    }
+
+    /**
+     * Determine if the controller is enabled.
+     */
+    public boolean isEnabled() {
+        return _isEnabled;
+    }
+
+    /**
+     * Set the controller enabled.
+     *
+     * @param isEnabled  True to enable, otherwise false.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcLookController setEnabled(boolean isEnabled) {
+        _isEnabled = isEnabled;
+
+        if (!isEnabled)
+            _isPending = false;
+
+        return this;
+    }
+
+    /**
+     * Get the minimum change in yaw or pitch in degrees required to apply a rotation.
+     */
+    public float getMinAngleDelta() {
+        return _minAngleDelta;
+    }
+
+    /**
+     * Set the minimum change in yaw or pitch in degrees required to apply a rotation.
+     *
+     * @param degrees  The angle in degrees.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcLookController setMinAngleDelta(float degrees) {
+        PreCon.positiveNumber(degrees, "degrees");
+
+        _minAngleDelta = degrees;
+        return this;
+    }
+
+    /**
+     * Get the minimum number of ticks between applied rotations.
+     */
+    public int getMinInterval() {
+        return _minInterval;
+    }
+
+    /**
+     * Set the minimum number of ticks between applied rotations.
+     *
+     * @param ticks  The interval in ticks.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcLookController setMinInterval(int ticks) {
+        PreCon.greaterThanZero(ticks, "ticks");
+
+        _minInterval = ticks;
+        return this;
+    }
+
+    /**
+     * Get the number of look requests made while enabled.
+     */
+    public long getRequestCount() {
+        return _requestCount;
+    }
+
+    /**
+     * Get the number of rotations applied.
+     */
+    public long getAppliedCount() {
+        return _appliedCount;
+    }
+
+    /**
+     * Get the number of look requests that were not applied because they were
+     * replaced by a later request or were below the minimum angle delta.
+     */
+    public long getSuppressedCount() {
+        return _suppressedCount;
+    }
+
+    /**
+     * Request a head rotation.
+     *
+     * @param yaw    The yaw angle.
+     * @param pitch  The pitch angle.
+     */
+    public void look(float yaw, float pitch) {
+
+        _requestCount++;
+
+        // replaced request
+        if (_isPending) {
+            _suppressedCount++;
+        }
+        else {
+            _isPending = true;
+            CitizensProvider.getInstance().getLookUpdater().add(this);
+        }
+
+        _pendingYaw = yaw;
+        _pendingPitch = pitch;
+    }
+
+    /**
+     * Request a head rotation facing a location.
+     *
+     * @param location  The location to face.
+     */
+    public void lookLocation(Location location) {
+        PreCon.notNull(location);
+
+        Entity entity = _npc.getEntity();
+        if (entity == null)
+            return;
+
+        Location eye = entity.getLocation(_location);
+        double eyeY = eye.getY() + (entity instanceof LivingEntity
+                ? ((LivingEntity) entity).getEyeHeight()
+                : 0);
+
+        double dx = location.getX() - eye.getX();
+        double dy = location.getY() - eyeY;
+        double dz = location.getZ() - eye.getZ();
+        double horizontal = Math.sqrt(dx * dx + dz * dz);
+
+        float yaw = (float) Math.toDegrees(Math.atan2(-dx, dz));
+        float pitch = (float) -Math.toDegrees(Math.atan2(dy, horizontal));
+
+        look(yaw, pitch);
+    }
+
+    /**
+     * Reset the controller to its default settings and clear its state and counters.
+     *
+     * <p>Invoked when the NPC is disposed so the pooled {@link Npc} does not carry
+     * settings into the next NPC that uses it.</p>
+     */
+    public void reset() {
+        _isEnabled = false;
+        _minAngleDelta = DEFAULT_MIN_ANGLE_DELTA;
+        _minInterval = DEFAULT_MIN_INTERVAL;
+
+        _isPending = false;
+        _hasApplied = false;
+        _appliedTick = 0;
+        _location.setWorld(null);
+
+        _requestCount = 0;
+        _appliedCount = 0;
+        _suppressedCount = 0;
+    }
+
+    /*
+     * Apply the pending request. Invoked by NpcLookUpdater at the end of each tick.
+     * Returns true if the request is finished, false to keep it pending.
+     */
+    boolean flush(long tick) {
+
+        if (!_isPending)
+            return true;
+
+        Entity entity = _npc.isSpawned() ? _npc.getEntity() : null;
+        if (entity == null) {
+            _isPending = false;
+            _suppressedCount++;
+            return true;
+        }
+
+        if (_hasApplied) {
+
+            // wait for the interval, the latest request is applied later
+            if (tick - _appliedTick < _minInterval)
+                return false;
+
+            if (Math.abs(angleDelta(_pendingYaw, _appliedYaw)) < _minAngleDelta &&
+                    Math.abs(_pendingPitch - _appliedPitch) < _minAngleDelta) {
+                _isPending = false;
+                _suppressedCount++;
+                return true;
+            }
+        }
+
+        NMS.look(entity, _pendingYaw, _pendingPitch);
+
+        _isPending = false;
+        _hasApplied = true;
+        _appliedYaw = _pendingYaw;
+        _appliedPitch = _pendingPitch;
+        _appliedTick = tick;
+        _appliedCount++;
+
+        return true;
+    }
+
+    private static float angleDelta(float a, float b) {
+        float delta = (a - b) % 360;
+        if (delta > 180)
+            delta -= 360;
+        else if (delta < -180)
+            delta += 360;
+        return delta;
+    }
+}
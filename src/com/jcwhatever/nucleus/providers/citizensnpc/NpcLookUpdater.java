@@ -0,0 +1,88 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies pending {@link NpcLookController} requests at the end of each tick.
+ */
+public class NpcLookUpdater implements Runnable {
+
+    private List<NpcLookController> _pending = new ArrayList<>(20);
+    private List<NpcLookController> _processing = new ArrayList<>(20);
+    private long _tick;
+
+    /**
+     * Get the number of controllers with a pending request.
+     */
+    public int getPendingCount() {
+        return _pending.size();
+    }
+
+    /**
+     * Add a controller with a new pending request.
+     *
+     * @param controller  The controller.
+     */
+    public void add(NpcLookController controller) {
+        PreCon.notNull(controller);
+
+        _pending.add(controller);
+    }
+
+    /**
+     * Remove all pending controllers.
+     */
+    public void clear() {
+        _pending.clear();
+    }
+
+    @Override
+    public void run() {
+
+        _tick++;
+
+        if (_pending.isEmpty())
+            return;
+
+        // controllers that are still pending are carried to the next tick
+        List<NpcLookController> processing = _pending;
+        _pending = _processing;
+        _processing = processing;
+
+        for (int i = 0; i < processing.size(); i++) {
+            NpcLookController controller = processing.get(i);
+
+            if (!controller.flush(_tick))
+                _pending.add(controller);
+        }
+
+        processing.clear();
+    }
+}
@@ -25,6 +25,8 @@
 package com.jcwhatever.nucleus.providers.citizensnpc;
 
 import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.managed.scheduler.IScheduledTask;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
 import com.jcwhatever.nucleus.mixins.IDisposable;
 import com.jcwhatever.nucleus.providers.citizensnpc.storage.DataNodeKey;
 import com.jcwhatever.nucleus.providers.citizensnpc.storage.DataNodeNPCStore;
@@ -36,17 +38,40 @@ import net.citizensnpcs.api.npc.NPCRegistry;
 import org.bukkit.entity.EntityType;
 
 import javax.annotation.Nullable;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
 /**
  * Pool of {@link Npc} used to reuse transient {@link Npc} instances
  * to reduce the amount of old generation objects created.
+ *
+ * <p>Sizing is controlled by {@link NpcPoolSettings}.</p>
+ *
+ * <p>A pool may be owned by a single {@link Registry} or shared by all registries
+ * through {@link CitizensProvider#getSharedPool}. Handles of a shared pool belong to
+ * a single Citizens registry and are leased to provider registries on creation and
+ * returned when the {@link Npc} is disposed.</p>
+ *
+ * <p>Pooled instances are partitioned by the entity type of their handle. Reuse
+ * prefers a handle of the requested type because changing the type of a Citizens
+ * NPC rebuilds its traits and entity controller. A handle of another type is
+ * converted only when the requested type's partition is empty.</p>
+ *
+ * <p>The unique ID of a Citizens NPC cannot be changed, so a handle whose ID may
+ * have been saved is never returned to the pool. Reusing it for another NPC would
+ * create a duplicate ID when the saved NPC is loaded again.</p>
  */
 public class NpcPool implements IDisposable {
 
+    /**
+     * The ID of the provider's shared pool.
+     */
+    public static final int SHARED_ID = -1;
+
     private static final String REGISTRY_NAME = "CitizensNpcProvider_NpcPool";
 
     // Used to create a unique ID across all provider registries to
@@ -54,39 +79,210 @@ public class NpcPool implements IDisposable {
     // start at 1000 to reduce chance of conflict with NPC's created with Citizens.
     private static int _transientId = 1000;
 
-    private final LinkedList<Npc> _pool = new LinkedList<Npc>();
+    private final Map<EntityType, LinkedList<Npc>> _pool = new EnumMap<>(EntityType.class);
     private final Set<Npc> _inUse = new HashSet<>(20);
     private final NPCRegistry _registry;
+    private final NpcPoolSettings _settings;
     private final int _id;
 
+    private IScheduledTask _trimTask;
+    private boolean _isUsed;
+    private int _pooledCount;
+    private long _hits;
+    private long _misses;
+    private long _conversions;
+    private long _trimmed;
+    private long _discarded;
     private boolean _isDisposed;
 
     /**
      * Constructor.
      *
-     * @param id  The pool ID.
+     * @param id        The pool ID.
+     * @param settings  The pool settings. The pool is pre-warmed using the settings.
      */
-    public NpcPool(int id) {
+    public NpcPool(int id, NpcPoolSettings settings) {
+        PreCon.notNull(settings);
+
         _id = id;
+        _settings = settings;
         DataNodeNPCStore dataStore = new DataNodeNPCStore(new MemoryDataNode(Nucleus.getPlugin()));
         _registry = CitizensAPI.createNamedNPCRegistry(REGISTRY_NAME + _id, dataStore);
+
+        prewarm(settings.getPrewarmSize(), settings.getPrewarmType());
+
+        _trimTask = Scheduler.runTaskRepeat(Nucleus.getPlugin(),
+                settings.getTrimInterval(), settings.getTrimInterval(), new Runnable() {
+                    @Override
+                    public void run() {
+                        trim();
+                    }
+                });
+    }
+
+    /**
+     * Get the pool settings.
+     */
+    public NpcPoolSettings getSettings() {
+        return _settings;
+    }
+
+    /**
+     * Get the number of handles in the pool that are available for reuse.
+     */
+    public int getPooledCount() {
+        return _pooledCount;
+    }
+
+    /**
+     * Get the number of handles of an entity type in the pool that are
+     * available for reuse.
+     *
+     * @param type  The entity type.
+     */
+    public int getPooledCount(EntityType type) {
+        PreCon.notNull(type);
+
+        LinkedList<Npc> partition = _pool.get(type);
+        return partition != null ? partition.size() : 0;
+    }
+
+    /**
+     * Get the number of handles currently in use.
+     */
+    public int getInUseCount() {
+        return _inUse.size();
+    }
+
+    /**
+     * Get the number of NPC's created using a pooled handle. Includes conversions.
+     */
+    public long getHits() {
+        return _hits;
+    }
+
+    /**
+     * Get the number of NPC's that required a new handle because the pool was
+     * empty or the NPC has a persisted unique ID.
+     */
+    public long getMisses() {
+        return _misses;
+    }
+
+    /**
+     * Get the number of NPC's created by converting a pooled handle of
+     * another entity type because no handle of the requested type was pooled.
+     */
+    public long getConversions() {
+        return _conversions;
+    }
+
+    /**
+     * Get the number of surplus handles destroyed by the pool.
+     */
+    public long getTrimmed() {
+        return _trimmed;
+    }
+
+    /**
+     * Get the number of handles destroyed instead of recycled because their
+     * unique ID may have been saved.
+     */
+    public long getDiscarded() {
+        return _discarded;
+    }
+
+    /**
+     * Add new handles to the pool.
+     *
+     * @param count  The number of handles to add. Limited by the max pool size.
+     * @param type   The entity type of the handles.
+     *
+     * @return  The number of handles added.
+     */
+    public int prewarm(int count, EntityType type) {
+        PreCon.positiveNumber(count, "count");
+        PreCon.notNull(type, "type");
+
+        if (_isDisposed)
+            throw new IllegalStateException("NPC Pool is disposed. Cannot pre-warm.");
+
+        return addNew(count, type, _settings.getMaxSize());
+    }
+
+    /**
+     * Make sure the pool has at least the specified number of handles of an
+     * entity type, adding new handles as needed.
+     *
+     * <p>Unlike {@link #prewarm}, the number of handles added is not limited by the
+     * max pool size. Used to reserve handles for a batch of NPC's that are created
+     * immediately after. Handles above the max size that are not used are destroyed
+     * by {@link #trim} once the pool is idle.</p>
+     *
+     * @param count  The number of handles to reserve.
+     * @param type   The entity type of the handles.
+     *
+     * @return  The number of handles added.
+     */
+    public int reserve(int count, EntityType type) {
+        PreCon.positiveNumber(count, "count");
+        PreCon.notNull(type, "type");
+
+        if (_isDisposed)
+            throw new IllegalStateException("NPC Pool is disposed. Cannot reserve.");
+
+        int needed = count - getPooledCount(type);
+        return needed > 0 ? addNew(needed, type, Integer.MAX_VALUE) : 0;
+    }
+
+    /**
+     * Destroy surplus pooled handles above the min pool size if the
+     * pool has not been used since the last trim.
+     *
+     * <p>Invoked by the pool every trim interval.</p>
+     *
+     * @return  The number of handles destroyed.
+     */
+    public int trim() {
+
+        if (_isDisposed)
+            return 0;
+
+        if (_isUsed) {
+            _isUsed = false;
+            return 0;
+        }
+
+        int count = 0;
+
+        while (count < _settings.getTrimAmount() && _pooledCount > _settings.getMinSize()) {
+            removeAny(true).getHandle().destroy();
+            count++;
+        }
+
+        _trimmed += count;
+
+        return count;
     }
 
     /**
      * Create a new {@link Npc} or retrieve an existing one from the pool.
      *
+     * <p>Pooled handles keep the unique ID they were created with, so they are
+     * only reused for NPC's that do not have an ID yet. An NPC with a persisted
+     * ID always gets a new handle with that ID.</p>
+     *
      * @param lookupName  The lookup name.
      * @param npcName     The NPC's name.
-     * @param id          The NPC's unique ID.
+     * @param id          The NPC's persisted unique ID or null for a new NPC.
      * @param type        The {@link org.bukkit.entity.EntityType}.
      * @param registry    The NPC's owning registry.
      *
      * @return  The {@link Npc} instance.
      */
     public Npc createNpc(@Nullable String lookupName, String npcName,
-                         UUID id, EntityType type, Registry registry) {
+                         @Nullable UUID id, EntityType type, Registry registry) {
         PreCon.notNull(npcName);
-        PreCon.notNull(id);
         PreCon.notNull(type);
         PreCon.notNull(registry);
 
@@ -95,14 +291,31 @@ public class NpcPool implements IDisposable {
 
         Npc npc;
 
-        if (_pool.isEmpty()) {
+        _isUsed = true;
+
+        LinkedList<Npc> partition = _pool.get(type);
 
+        if (id != null) {
             NPC handle = _registry.createNPC(type, id, nextId(), npcName);
             npc = new Npc(handle, this);
+            npc.markIdPersisted();
+            _misses++;
         }
-        else {
-            npc = _pool.remove();
+        else if (partition != null && !partition.isEmpty()) {
+            npc = partition.removeLast();
+            _pooledCount--;
+            _hits++;
+        }
+        else if (_pooledCount > 0) {
+            npc = removeAny(false);
             npc.getHandle().setBukkitEntityType(type);
+            _hits++;
+            _conversions++;
+        }
+        else {
+            NPC handle = _registry.createNPC(type, UUID.randomUUID(), nextId(), npcName);
+            npc = new Npc(handle, this);
+            _misses++;
         }
 
         _inUse.add(npc);
@@ -127,7 +340,73 @@ public class NpcPool implements IDisposable {
             return;
 
         _inUse.remove(npc);
-        _pool.add(npc);
+        _isUsed = true;
+
+        if (npc.isIdPersisted()) {
+            npc.getHandle().destroy();
+            _discarded++;
+            return;
+        }
+
+        if (_pooledCount >= _settings.getMaxSize()) {
+            npc.getHandle().destroy();
+            _trimmed++;
+            return;
+        }
+
+        add(npc, npc.getTraits().getType());
+    }
+
+    /*
+     * Add new handles of an entity type until the count is reached or
+     * the pool size reaches the limit.
+     */
+    private int addNew(int count, EntityType type, int limit) {
+
+        int added = 0;
+
+        while (added < count && _pooledCount < limit) {
+            NPC handle = _registry.createNPC(type, UUID.randomUUID(), nextId(), "pooled");
+            add(new Npc(handle, this), type);
+            added++;
+        }
+
+        return added;
+    }
+
+    /*
+     * Add an Npc to the partition of its handle's entity type.
+     */
+    private void add(Npc npc, EntityType type) {
+
+        LinkedList<Npc> partition = _pool.get(type);
+        if (partition == null) {
+            partition = new LinkedList<>();
+            _pool.put(type, partition);
+        }
+
+        partition.add(npc);
+        _pooledCount++;
+    }
+
+    /*
+     * Remove an Npc from the largest partition. Recently recycled instances
+     * are reused first; the oldest are trimmed first.
+     */
+    private Npc removeAny(boolean isOldest) {
+
+        LinkedList<Npc> largest = null;
+
+        for (LinkedList<Npc> partition : _pool.values()) {
+            if (largest == null || partition.size() > largest.size())
+                largest = partition;
+        }
+
+        if (largest == null || largest.isEmpty())
+            throw new IllegalStateException("NPC Pool is empty.");
+
+        _pooledCount--;
+        return isOldest ? largest.removeFirst() : largest.removeLast();
     }
 
     /*
@@ -150,19 +429,25 @@ public class NpcPool implements IDisposable {
 
         _isDisposed = true;
 
+        if (_trimTask != null) {
+            _trimTask.cancel();
+            _trimTask = null;
+        }
+
         for (Npc npc : _inUse) {
             npc.dispose();
         }
 
-        while (!_pool.isEmpty()) {
-            Npc npc = _pool.remove();
-
-            if (!npc.isDisposed())
-                npc.dispose();
-
-            npc.getHandle().destroy();
+        // pooled NPC's are disposed or were never initialized
+        for (LinkedList<Npc> partition : _pool.values()) {
+            for (Npc npc : partition) {
+                npc.getHandle().destroy();
+            }
         }
 
+        _pool.clear();
+        _pooledCount = 0;
+
         _inUse.clear();
 
         if (CitizensAPI.hasImplementation())
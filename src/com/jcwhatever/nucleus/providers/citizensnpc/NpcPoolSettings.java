@@ -0,0 +1,194 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+import org.bukkit.entity.EntityType;
+
+/**
+ * Sizing settings for an {@link NpcPool}.
+ *
+ * <p>A pool is pre-warmed with handles when it is created. Recycled handles
+ * above the max size are destroyed. Handles above the min size are destroyed
+ * gradually while the pool is idle.</p>
+ */
+public class NpcPoolSettings {
+
+    private int _prewarmSize;
+    private EntityType _prewarmType = EntityType.PLAYER;
+    private int _minSize;
+    private int _maxSize = 100;
+    private int _trimInterval = 200;
+    private int _trimAmount = 5;
+
+    /**
+     * Constructor.
+     */
+    public NpcPoolSettings() {}
+
+    /**
+     * Copy constructor.
+     *
+     * @param settings  The settings to copy.
+     */
+    public NpcPoolSettings(NpcPoolSettings settings) {
+        PreCon.notNull(settings);
+
+        _prewarmSize = settings._prewarmSize;
+        _prewarmType = settings._prewarmType;
+        _minSize = settings._minSize;
+        _maxSize = settings._maxSize;
+        _trimInterval = settings._trimInterval;
+        _trimAmount = settings._trimAmount;
+    }
+
+    /**
+     * Get the number of handles created when the pool is created.
+     */
+    public int getPrewarmSize() {
+        return _prewarmSize;
+    }
+
+    /**
+     * Set the number of handles created when the pool is created.
+     *
+     * @param size  The number of handles.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcPoolSettings setPrewarmSize(int size) {
+        PreCon.positiveNumber(size, "size");
+
+        _prewarmSize = size;
+        return this;
+    }
+
+    /**
+     * Get the entity type of pre-warmed handles.
+     */
+    public EntityType getPrewarmType() {
+        return _prewarmType;
+    }
+
+    /**
+     * Set the entity type of pre-warmed handles.
+     *
+     * @param type  The entity type.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcPoolSettings setPrewarmType(EntityType type) {
+        PreCon.notNull(type, "type");
+
+        _prewarmType = type;
+        return this;
+    }
+
+    /**
+     * Get the number of pooled handles that are kept when the pool is idle.
+     */
+    public int getMinSize() {
+        return _minSize;
+    }
+
+    /**
+     * Set the number of pooled handles that are kept when the pool is idle.
+     *
+     * @param size  The number of handles.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcPoolSettings setMinSize(int size) {
+        PreCon.positiveNumber(size, "size");
+
+        _minSize = size;
+        return this;
+    }
+
+    /**
+     * Get the max number of pooled handles. Recycled handles above
+     * the max are destroyed.
+     */
+    public int getMaxSize() {
+        return _maxSize;
+    }
+
+    /**
+     * Set the max number of pooled handles. Recycled handles above
+     * the max are destroyed.
+     *
+     * @param size  The number of handles.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcPoolSettings setMaxSize(int size) {
+        PreCon.positiveNumber(size, "size");
+
+        _maxSize = size;
+        return this;
+    }
+
+    /**
+     * Get the interval in ticks that an idle pool is trimmed.
+     */
+    public int getTrimInterval() {
+        return _trimInterval;
+    }
+
+    /**
+     * Set the interval in ticks that an idle pool is trimmed.
+     *
+     * @param ticks  The interval in ticks.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcPoolSettings setTrimInterval(int ticks) {
+        PreCon.greaterThanZero(ticks, "ticks");
+
+        _trimInterval = ticks;
+        return this;
+    }
+
+    /**
+     * Get the max number of surplus handles destroyed per trim interval.
+     */
+    public int getTrimAmount() {
+        return _trimAmount;
+    }
+
+    /**
+     * Set the max number of surplus handles destroyed per trim interval.
+     *
+     * @param amount  The number of handles.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcPoolSettings setTrimAmount(int amount) {
+        PreCon.greaterThanZero(amount, "amount");
+
+        _trimAmount = amount;
+        return this;
+    }
+}
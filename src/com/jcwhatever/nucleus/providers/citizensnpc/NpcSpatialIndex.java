@@ -0,0 +1,546 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Chunk grid index of spawned {@link Npc} positions.
+ *
+ * <p>NPC's are added when spawned and removed when despawned. Positions are
+ * refreshed by running the index once per tick. Only NPC's that are navigating
+ * or have recently moved are checked every tick. Idle NPC's are checked in a
+ * rolling sweep, so an idle NPC moved by something other than its navigator may
+ * be up to {@link #SWEEP_INTERVAL} ticks behind in query results until it is
+ * marked as moved.</p>
+ *
+ * <p>Queries read cached positions instead of entity locations and add results
+ * to a caller supplied collection.</p>
+ */
+public class NpcSpatialIndex implements Runnable {
+
+    /**
+     * The number of ticks an NPC is checked every tick after it last moved.
+     */
+    public static final int ACTIVE_TICKS = 20;
+
+    /**
+     * The number of ticks between checks of idle NPC's.
+     */
+    public static final int SWEEP_INTERVAL = 20;
+
+    private final Map<Npc, Entry> _entries = new IdentityHashMap<>(50);
+    private final Map<UUID, ChunkGrid> _grids = new HashMap<>(5);
+    private final Location _location = new Location(null, 0, 0, 0);
+
+    private Entry[] _snapshot = new Entry[0];
+    private boolean _isSnapshotChanged;
+    private int _tick;
+    private int _nextSweepSlot;
+
+    /**
+     * Get the number of indexed NPC's.
+     */
+    public int size() {
+        return _entries.size();
+    }
+
+    /**
+     * Add a spawned NPC to the index or update its entity.
+     *
+     * @param npc     The NPC.
+     * @param entity  The NPC's entity.
+     */
+    public void add(Npc npc, Entity entity) {
+        PreCon.notNull(npc);
+        PreCon.notNull(entity);
+
+        Entry entry = _entries.get(npc);
+        if (entry == null) {
+            entry = new Entry(npc, _nextSweepSlot);
+            _entries.put(npc, entry);
+            _isSnapshotChanged = true;
+            _nextSweepSlot = (_nextSweepSlot + 1) % SWEEP_INTERVAL;
+        }
+
+        entry.entity = entity;
+        entry.idleTicks = 0;
+        update(entry);
+    }
+
+    /**
+     * Mark an NPC as moved by something other than its navigator, such as
+     * a teleport or a push, so its position is checked every tick again.
+     *
+     * @param npc  The NPC.
+     */
+    public void markMoved(Npc npc) {
+        PreCon.notNull(npc);
+
+        Entry entry = _entries.get(npc);
+        if (entry != null)
+            entry.idleTicks = 0;
+    }
+
+    /**
+     * Remove an NPC from the index.
+     *
+     * <p>The NPC is not removed if it has been re-added with a different entity.</p>
+     *
+     * @param npc     The NPC.
+     * @param entity  The despawned entity.
+     */
+    public void remove(Npc npc, Entity entity) {
+        PreCon.notNull(npc);
+        PreCon.notNull(entity);
+
+        Entry entry = _entries.get(npc);
+        if (entry == null || entry.entity != entity)
+            return;
+
+        _entries.remove(npc);
+
+        removeFromCell(entry);
+
+        entry.entity = null;
+        _isSnapshotChanged = true;
+    }
+
+    /**
+     * Remove all NPC's in a world from the index.
+     *
+     * <p>Used when the world is unloaded.</p>
+     *
+     * @param world  The world.
+     */
+    public void removeWorld(World world) {
+        PreCon.notNull(world);
+
+        UUID worldId = world.getUID();
+
+        if (_grids.remove(worldId) == null)
+            return;
+
+        Iterator<Entry> iterator = _entries.values().iterator();
+
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+
+            if (!worldId.equals(entry.worldId))
+                continue;
+
+            iterator.remove();
+            entry.cell = null;
+            entry.entity = null;
+            _isSnapshotChanged = true;
+        }
+    }
+
+    /**
+     * Remove all NPC's from the index.
+     */
+    public void clear() {
+        _entries.clear();
+        _grids.clear();
+        _snapshot = new Entry[0];
+        _isSnapshotChanged = false;
+    }
+
+    /**
+     * Get spawned NPC's within a radius of a location.
+     *
+     * @param center    The center of the search.
+     * @param radius    The search radius.
+     * @param registry  Optional registry the NPC's must belong to. Null for all registries.
+     * @param output    The output collection to add results to.
+     *
+     * @param <T>  The output collection type.
+     *
+     * @return  The output collection.
+     */
+    public <T extends Collection<Npc>> T getInRadius(Location center, double radius,
+                                                     @Nullable Registry registry, T output) {
+        PreCon.notNull(center);
+        PreCon.positiveNumber(radius);
+        PreCon.notNull(output);
+
+        ChunkGrid grid = _grids.get(center.getWorld().getUID());
+        if (grid == null)
+            return output;
+
+        double x = center.getX();
+        double y = center.getY();
+        double z = center.getZ();
+        double radiusSq = radius * radius;
+
+        int minX = floor(x - radius) >> 4;
+        int maxX = floor(x + radius) >> 4;
+        int minZ = floor(z - radius) >> 4;
+        int maxZ = floor(z + radius) >> 4;
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+
+                Cell cell = grid.get(cx, cz);
+                if (cell == null)
+                    continue;
+
+                for (int i = 0; i < cell.size; i++) {
+                    Entry entry = cell.entries[i];
+
+                    double dx = entry.x - x;
+                    double dy = entry.y - y;
+                    double dz = entry.z - z;
+
+                    if (dx * dx + dy * dy + dz * dz <= radiusSq && isMatch(entry, registry))
+                        output.add(entry.npc);
+                }
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Get spawned NPC's in a chunk.
+     *
+     * @param world     The world.
+     * @param chunkX    The chunk X coordinate.
+     * @param chunkZ    The chunk Z coordinate.
+     * @param registry  Optional registry the NPC's must belong to. Null for all registries.
+     * @param output    The output collection to add results to.
+     *
+     * @param <T>  The output collection type.
+     *
+     * @return  The output collection.
+     */
+    public <T extends Collection<Npc>> T getInChunk(World world, int chunkX, int chunkZ,
+                                                    @Nullable Registry registry, T output) {
+        PreCon.notNull(world);
+        PreCon.notNull(output);
+
+        ChunkGrid grid = _grids.get(world.getUID());
+        if (grid == null)
+            return output;
+
+        Cell cell = grid.get(chunkX, chunkZ);
+        if (cell == null)
+            return output;
+
+        for (int i = 0; i < cell.size; i++) {
+            Entry entry = cell.entries[i];
+
+            if (isMatch(entry, registry))
+                output.add(entry.npc);
+        }
+
+        return output;
+    }
+
+    /**
+     * Refresh the positions of indexed NPC's that are navigating, have recently
+     * moved or are due in the idle sweep. Invoked every tick.
+     */
+    @Override
+    public void run() {
+
+        if (_isSnapshotChanged) {
+            _snapshot = _entries.values().toArray(new Entry[_entries.size()]);
+            _isSnapshotChanged = false;
+        }
+
+        Entry[] entries = _snapshot;
+        int sweepSlot = _tick;
+
+        _tick = (_tick + 1) % SWEEP_INTERVAL;
+
+        for (Entry entry : entries) {
+            // removed since the snapshot was taken
+            if (entry.entity == null)
+                continue;
+
+            if (entry.idleTicks >= ACTIVE_TICKS
+                    && entry.sweepSlot != sweepSlot
+                    && !entry.npc.getNavigator().isRunning()) {
+                continue;
+            }
+
+            if (update(entry)) {
+                entry.idleTicks = 0;
+            }
+            else if (entry.idleTicks < ACTIVE_TICKS) {
+                entry.idleTicks++;
+            }
+        }
+    }
+
+    /*
+     * Update an entry's position and move it to another cell if needed.
+     * Returns true if the position changed.
+     */
+    private boolean update(Entry entry) {
+
+        Location location = entry.entity.getLocation(_location);
+        UUID worldId = location.getWorld().getUID();
+
+        double x = location.getX();
+        double y = location.getY();
+        double z = location.getZ();
+
+        boolean isMoved = x != entry.x || y != entry.y || z != entry.z;
+
+        entry.x = x;
+        entry.y = y;
+        entry.z = z;
+
+        int cx = floor(entry.x) >> 4;
+        int cz = floor(entry.z) >> 4;
+
+        if (entry.cell != null && entry.cx == cx && entry.cz == cz && worldId.equals(entry.worldId))
+            return isMoved;
+
+        removeFromCell(entry);
+
+        ChunkGrid grid = _grids.get(worldId);
+        if (grid == null) {
+            grid = new ChunkGrid();
+            _grids.put(worldId, grid);
+        }
+
+        entry.worldId = worldId;
+        entry.cx = cx;
+        entry.cz = cz;
+        entry.cell = grid.getOrCreate(cx, cz);
+        entry.cell.add(entry);
+
+        return true;
+    }
+
+    /*
+     * Remove an entry from its cell. Empty cells and grids are removed
+     * so they do not accumulate as NPC's move.
+     */
+    private void removeFromCell(Entry entry) {
+
+        Cell cell = entry.cell;
+        if (cell == null)
+            return;
+
+        cell.remove(entry);
+
+        if (cell.size != 0)
+            return;
+
+        ChunkGrid grid = _grids.get(entry.worldId);
+        if (grid == null)
+            return;
+
+        grid.remove(entry.cx, entry.cz);
+
+        if (grid.size == 0)
+            _grids.remove(entry.worldId);
+    }
+
+    private static boolean isMatch(Entry entry, @Nullable Registry registry) {
+        return registry == null || entry.npc.getRegistry() == registry;
+    }
+
+    private static int floor(double value) {
+        int i = (int) value;
+        return value < i ? i - 1 : i;
+    }
+
+    /*
+     * Indexed NPC.
+     */
+    private static final class Entry {
+        final Npc npc;
+        final int sweepSlot;
+        Entity entity;
+        UUID worldId;
+        int cx;
+        int cz;
+        double x;
+        double y;
+        double z;
+        Cell cell;
+        int index;
+        int idleTicks;
+
+        Entry(Npc npc, int sweepSlot) {
+            this.npc = npc;
+            this.sweepSlot = sweepSlot;
+        }
+    }
+
+    /*
+     * NPC's in a chunk. Entries are removed by swapping in the last entry.
+     */
+    private static final class Cell {
+        Entry[] entries = new Entry[4];
+        int size;
+
+        void add(Entry entry) {
+            if (size == entries.length) {
+                Entry[] expanded = new Entry[size * 2];
+                System.arraycopy(entries, 0, expanded, 0, size);
+                entries = expanded;
+            }
+            entry.index = size;
+            entries[size++] = entry;
+        }
+
+        void remove(Entry entry) {
+            int index = entry.index;
+            Entry last = entries[--size];
+            entries[index] = last;
+            last.index = index;
+            entries[size] = null;
+            entry.cell = null;
+        }
+    }
+
+    /*
+     * Open addressing map of chunk coordinates to cells in a world.
+     * Removed slots are refilled by shifting back the entries that follow
+     * so lookups do not need tombstones.
+     */
+    private static final class ChunkGrid {
+        long[] keys = new long[64];
+        Cell[] cells = new Cell[64];
+        int size;
+
+        Cell get(int cx, int cz) {
+            long key = key(cx, cz);
+            int mask = keys.length - 1;
+            int index = hash(key) & mask;
+
+            while (cells[index] != null) {
+                if (keys[index] == key)
+                    return cells[index];
+
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        Cell getOrCreate(int cx, int cz) {
+            Cell cell = get(cx, cz);
+            if (cell != null)
+                return cell;
+
+            if ((size + 1) * 2 > keys.length)
+                resize();
+
+            cell = new Cell();
+            insert(key(cx, cz), cell);
+            size++;
+            return cell;
+        }
+
+        void remove(int cx, int cz) {
+            long key = key(cx, cz);
+            int mask = keys.length - 1;
+            int index = hash(key) & mask;
+
+            while (cells[index] != null) {
+                if (keys[index] == key)
+                    break;
+
+                index = (index + 1) & mask;
+            }
+
+            if (cells[index] == null)
+                return;
+
+            size--;
+
+            // shift back following entries that can not be found past the empty slot
+            int empty = index;
+            index = (index + 1) & mask;
+
+            while (cells[index] != null) {
+                int home = hash(keys[index]) & mask;
+
+                // move the entry if its home slot is not cyclically within (empty, index]
+                if (empty <= index ? (home <= empty || home > index) : (home <= empty && home > index)) {
+                    keys[empty] = keys[index];
+                    cells[empty] = cells[index];
+                    empty = index;
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            keys[empty] = 0;
+            cells[empty] = null;
+        }
+
+        private void insert(long key, Cell cell) {
+            int mask = keys.length - 1;
+            int index = hash(key) & mask;
+
+            while (cells[index] != null) {
+                index = (index + 1) & mask;
+            }
+
+            keys[index] = key;
+            cells[index] = cell;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Cell[] oldCells = cells;
+
+            keys = new long[oldKeys.length * 2];
+            cells = new Cell[oldCells.length * 2];
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldCells[i] != null)
+                    insert(oldKeys[i], oldCells[i]);
+            }
+        }
+
+        private static long key(int cx, int cz) {
+            return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+import org.bukkit.entity.EntityType;
+
+import javax.annotation.Nullable;
+
+/**
+ * Describes an NPC to create using {@link Registry#createAll}.
+ */
+public class NpcSpec {
+
+    private final String _lookupName;
+    private final String _npcName;
+    private final EntityType _type;
+
+    /**
+     * Constructor.
+     *
+     * @param lookupName  Optional unique lookup name of the NPC.
+     * @param npcName     The NPC name.
+     * @param type        The NPC entity type.
+     */
+    public NpcSpec(@Nullable String lookupName, String npcName, EntityType type) {
+        PreCon.notNull(npcName);
+        PreCon.notNull(type);
+
+        _lookupName = lookupName;
+        _npcName = npcName;
+        _type = type;
+    }
+
+    /**
+     * Get the lookup name. Null if the lookup name is generated.
+     */
+    @Nullable
+    public String getLookupName() {
+        return _lookupName;
+    }
+
+    /**
+     * Get the NPC name.
+     */
+    public String getNpcName() {
+        return _npcName;
+    }
+
+    /**
+     * Get the NPC entity type.
+     */
+    public EntityType getType() {
+        return _type;
+    }
+}
@@ -51,14 +51,20 @@ import java.util.UUID;
 
 /**
  * Public wrapper to prevent accessing re-purposed NPC instances.
+ *
+ * <p>A wrapper created from an {@link NpcDescriptor} materializes its {@link Npc}
+ * the first time the NPC is used.</p>
  */
-public class NpcWrapper implements INpc {
+public class NpcWrapper implements INpc, INpcChangeTracker {
 
     private final int _hash;
+    private final Registry _registry;
     private final String _npcId;
-    private final UUID _uuid;
+
+    private UUID _uuid;
 
     private Npc _npc;
+    private NpcDescriptor _descriptor;
     private String _display;
 
     /**
@@ -70,26 +76,52 @@ public class NpcWrapper implements INpc {
         _npc = npc == null ? null : npc.isDisposed() ? null : npc;
 
         if (npc != null) {
-            _hash = npc.hashCode();
+            _registry = npc.getRegistry();
             _npcId = npc.getLookupName();
+            _hash = hash(_registry, _npcId);
             _display = npc.getDisplayName();
             _uuid = npc.getId();
         }
         else {
             _hash = 0;
+            _registry = null;
             _npcId = null;
             _uuid = null;
         }
     }
 
+    /**
+     * Constructor.
+     *
+     * @param descriptor  The descriptor of the Npc to materialize when the Npc is first used.
+     */
+    public NpcWrapper(NpcDescriptor descriptor) {
+        PreCon.notNull(descriptor);
+
+        _descriptor = descriptor;
+        _registry = descriptor.getRegistry();
+        _npcId = descriptor.getLookupName();
+        _hash = hash(_registry, _npcId);
+        _display = descriptor.getName();
+        _uuid = descriptor.getId();
+    }
+
+    /**
+     * Determine if the wrapped {@link Npc} has been created.
+     */
+    public boolean isMaterialized() {
+        return _npc != null;
+    }
+
     /**
      * Get the NPC data storage.
      */
     public DataNodeKey getDataKey() {
-        if (_npc == null)
+        Npc npc = npc();
+        if (npc == null)
             return null;
 
-        return _npc.getDataKey();
+        return npc.getDataKey();
     }
 
     /**
@@ -102,6 +134,9 @@ public class NpcWrapper implements INpc {
 
     @Override
     public Registry getRegistry() {
+        if (_descriptor != null)
+            return _descriptor.getRegistry();
+
         checkDisposed();
         return _npc.getRegistry();
     }
@@ -128,8 +163,9 @@ public class NpcWrapper implements INpc {
     public INpc setDisplayName(String name) {
         PreCon.notNull(name);
 
-        if (_npc != null) {
-            _npc.setDisplayName(name);
+        Npc npc = npc();
+        if (npc != null) {
+            npc.setDisplayName(name);
             _display = name;
         }
         return this;
@@ -137,13 +173,15 @@ public class NpcWrapper implements INpc {
 
     @Override
     public boolean isDisplayNameVisible() {
-        return _npc != null && _npc.isDisplayNameVisible();
+        Npc npc = npc();
+        return npc != null && npc.isDisplayNameVisible();
     }
 
     @Override
     public INpc setDisplayNameVisible(boolean isVisible) {
-        if (_npc != null) {
-            _npc.setDisplayNameVisible(isVisible);
+        Npc npc = npc();
+        if (npc != null) {
+            npc.setDisplayNameVisible(isVisible);
         }
         return this;
     }
@@ -164,7 +202,8 @@ public class NpcWrapper implements INpc {
 
     @Override
     public boolean spawn(Location location) {
-        return _npc != null && _npc.spawn(location);
+        Npc npc = npc();
+        return npc != null && npc.spawn(location);
     }
 
     @Override
@@ -269,13 +308,28 @@ public class NpcWrapper implements INpc {
         return _npc.save(dataNode);
     }
 
+    @Override
+    public void markDirty() {
+
+        // a descriptor is unchanged until materialized
+        if (_npc != null)
+            _npc.markDirty();
+    }
+
     @Override
     public boolean isDisposed() {
-        return _npc == null;
+        return _npc == null && _descriptor == null;
     }
 
     @Override
     public void dispose() {
+
+        if (_descriptor != null) {
+            _descriptor.getRegistry().remove(_descriptor);
+            _descriptor = null;
+            return;
+        }
+
         if (_npc == null)
             return;
 
@@ -367,20 +421,51 @@ public class NpcWrapper implements INpc {
     public boolean equals(Object obj) {
         if (obj instanceof NpcWrapper) {
             NpcWrapper other = (NpcWrapper)obj;
-            return _hash == other._hash
+            return _registry == other._registry
                     && ((_npcId != null && _npcId.equals(other._npcId))
                     || (_npcId == null && other._npcId == null));
         }
+        else if (obj instanceof Npc) {
+            // compared by registry and lookup name since a lazily loaded
+            // wrapper is created before its Npc
+            Npc npc = (Npc)obj;
+            return _npcId != null
+                    && _registry == npc.getRegistry()
+                    && _npcId.equals(npc.getLookupName());
+        }
         else if (obj instanceof INpc) {
             INpc npc = (INpc)obj;
-            return _hash == npc.hashCode()
-                    && npc.getLookupName().equals(_npcId);
+            return _npcId != null
+                    && _registry == npc.getRegistry()
+                    && _npcId.equals(npc.getLookupName());
         }
         return false;
     }
 
+    private static int hash(@Nullable Registry registry, @Nullable String lookupName) {
+        int hash = registry != null ? registry.hashCode() : 0;
+        return 31 * hash + (lookupName != null ? lookupName.hashCode() : 0);
+    }
+
+    /*
+     * Get the wrapped Npc, materializing it if needed. Null if disposed.
+     */
+    @Nullable
+    private Npc npc() {
+        if (_descriptor != null) {
+            NpcDescriptor descriptor = _descriptor;
+            _descriptor = null;
+            _npc = descriptor.getRegistry().materialize(descriptor);
+
+            // the handle determines the ID once materialized
+            if (_npc != null)
+                _uuid = _npc.getId();
+        }
+        return _npc;
+    }
+
     private void checkDisposed() {
-        if (_npc == null)
+        if (npc() == null)
             throw new IllegalStateException("Cannot use a disposed Npc.");
     }
 }
@@ -26,7 +26,14 @@ package com.jcwhatever.nucleus.providers.citizensnpc;
 
 import com.jcwhatever.nucleus.Nucleus;
 import com.jcwhatever.nucleus.internal.NucMsg;
+import com.jcwhatever.nucleus.providers.citizensnpc.ai.AiLodSettings;
+import com.jcwhatever.nucleus.providers.citizensnpc.events.NpcEventAgents;
+import com.jcwhatever.nucleus.providers.citizensnpc.events.NpcEventType;
+import com.jcwhatever.nucleus.providers.citizensnpc.storage.AsyncNpcSaver;
 import com.jcwhatever.nucleus.providers.citizensnpc.storage.DataNodeNPCStore;
+import com.jcwhatever.nucleus.providers.citizensnpc.storage.NpcFiles;
+import com.jcwhatever.nucleus.providers.citizensnpc.storage.NpcLoadTask;
+import com.jcwhatever.nucleus.providers.citizensnpc.storage.NpcSnapshot;
 import com.jcwhatever.nucleus.providers.citizensnpc.traits.NpcTraitRegistry;
 import com.jcwhatever.nucleus.providers.citizensnpc.traits.TraitPool;
 import com.jcwhatever.nucleus.providers.npc.INpc;
@@ -48,19 +55,24 @@ import com.jcwhatever.nucleus.storage.IDataNode;
 import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.nucleus.utils.observer.script.IScriptUpdateSubscriber;
 import com.jcwhatever.nucleus.utils.observer.script.ScriptUpdateSubscriber;
-import com.jcwhatever.nucleus.utils.observer.update.NamedUpdateAgents;
+import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.plugin.Plugin;
 
 import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Future;
 
 /**
  * Implementation of {@link com.jcwhatever.nucleus.providers.npc.INpcProvider}.
@@ -74,12 +86,18 @@ public class Registry implements INpcRegistry {
     private final String _searchName;
     private final Map<String, Npc> _npcMap = new HashMap<>(10);
     private final Map<String, INpc> _wrappedMap = new HashMap<>(10);
+    private final Map<String, NpcDescriptor> _descriptors = new HashMap<>(10);
     private final NpcTraitRegistry _traits;
-    private final NamedUpdateAgents _agents = new NamedUpdateAgents();
+    private final NpcEventAgents _agents = new NpcEventAgents();
     private final DataNodeNPCStore _dataStore;
     private final NpcPool _npcPool;
+    private final boolean _isPoolOwner;
     private final TraitPool _traitPool = new TraitPool();
+    private final AiLodSettings _aiLodSettings = new AiLodSettings();
 
+    private final AsyncNpcSaver _asyncSaver = new AsyncNpcSaver(this);
+    private IDataNode _lastSaveNode;
+    private boolean _isLazyLoading;
     private boolean _isDisposed;
 
     /**
@@ -94,7 +112,16 @@ public class Registry implements INpcRegistry {
         PreCon.notNullOrEmpty(name);
         PreCon.notNull(dataNode);
 
-        _npcPool = new NpcPool(nextId());
+        CitizensProvider provider = CitizensProvider.getInstance();
+
+        if (provider.isPoolShared()) {
+            _npcPool = provider.getSharedPool();
+            _isPoolOwner = false;
+        }
+        else {
+            _npcPool = new NpcPool(nextId(), new NpcPoolSettings(provider.getPoolSettings()));
+            _isPoolOwner = true;
+        }
 
         _plugin = plugin;
         _name = name;
@@ -114,6 +141,50 @@ public class Registry implements INpcRegistry {
         return _traitPool;
     }
 
+    /**
+     * Get the pool the registry creates NPC's from.
+     *
+     * <p>The pool may be the provider's shared pool.</p>
+     */
+    public NpcPool getNpcPool() {
+        return _npcPool;
+    }
+
+    /**
+     * Get the AI level of detail settings for NPC's in the registry.
+     */
+    public AiLodSettings getAiLodSettings() {
+        return _aiLodSettings;
+    }
+
+    /**
+     * Determine if loaded NPC's are kept as descriptors until they are first used.
+     */
+    public boolean isLazyLoading() {
+        return _isLazyLoading;
+    }
+
+    /**
+     * Set whether loaded NPC's are kept as descriptors until they are first used.
+     *
+     * <p>In lazy loading mode, {@link #load} validates the NPC data and returns a wrapper
+     * without creating the NPC. The NPC is created from the data node it was loaded
+     * from the first time the wrapper is used for anything other than reading its
+     * lookup name, ID, display name or spawned state.</p>
+     *
+     * @param isLazyLoading  True to enable lazy loading.
+     */
+    public void setLazyLoading(boolean isLazyLoading) {
+        _isLazyLoading = isLazyLoading;
+    }
+
+    /**
+     * Get descriptors of loaded NPC's that have not been materialized.
+     */
+    public Collection<NpcDescriptor> getDescriptors() {
+        return Collections.unmodifiableCollection(_descriptors.values());
+    }
+
     @Override
     public Plugin getPlugin() {
         return _plugin;
@@ -137,13 +208,13 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        if (lookupName != null && _npcMap.containsKey(lookupName.toLowerCase())) {
+        if (lookupName != null && _wrappedMap.containsKey(lookupName.toLowerCase())) {
             NucMsg.debug("Attempted to create an NPC with a lookup name that already exists: {0}", lookupName);
             return null;
         }
 
         // create npc from pool
-        Npc npc = _npcPool.createNpc(lookupName, npcName, UUID.randomUUID(), type, this);
+        Npc npc = _npcPool.createNpc(lookupName, npcName, null, type, this);
         NpcWrapper wrapper = new NpcWrapper(npc);
 
         // store npc in registry
@@ -157,6 +228,70 @@ public class Registry implements INpcRegistry {
         return wrapper;
     }
 
+    /**
+     * Create multiple NPC's.
+     *
+     * <p>Pooled handles for the whole batch are reserved before any NPC is created,
+     * even if the batch is larger than the max pool size. {@link NpcCreateEvent}'s are called in a single pass after all NPC's
+     * in the batch are created.</p>
+     *
+     * @param specs  The NPC specifications.
+     *
+     * @return  The created NPC's in the same order as the specifications. Contains
+     * null for specifications whose lookup name is already in use.
+     */
+    public List<INpc> createAll(List<NpcSpec> specs) {
+        PreCon.notNull(specs);
+
+        checkDisposed();
+
+        // reserve pooled handles for each entity type in the batch
+        Map<EntityType, Integer> typeCounts = new EnumMap<>(EntityType.class);
+        for (NpcSpec spec : specs) {
+            Integer count = typeCounts.get(spec.getType());
+            typeCounts.put(spec.getType(), count == null ? 1 : count + 1);
+        }
+
+        for (Map.Entry<EntityType, Integer> entry : typeCounts.entrySet()) {
+            _npcPool.reserve(entry.getValue(), entry.getKey());
+        }
+
+        List<INpc> result = new ArrayList<>(specs.size());
+        List<NpcWrapper> created = new ArrayList<>(specs.size());
+
+        for (NpcSpec spec : specs) {
+
+            String lookupName = spec.getLookupName();
+
+            if (lookupName != null && _wrappedMap.containsKey(lookupName.toLowerCase())) {
+                NucMsg.debug("Attempted to create an NPC with a lookup name that already exists: {0}", lookupName);
+                result.add(null);
+                continue;
+            }
+
+            Npc npc = _npcPool.createNpc(lookupName, spec.getNpcName(), null, spec.getType(), this);
+            NpcWrapper wrapper = new NpcWrapper(npc);
+
+            _npcMap.put(npc.getLookupName(), npc);
+            _wrappedMap.put(npc.getLookupName(), wrapper);
+
+            result.add(wrapper);
+            created.add(wrapper);
+        }
+
+        for (NpcWrapper wrapper : created) {
+
+            // an event handler may dispose NPC's in the batch
+            if (wrapper.isDisposed())
+                continue;
+
+            NpcCreateEvent event = new NpcCreateEvent(wrapper);
+            Nucleus.getEventManager().callBukkit(this, event);
+        }
+
+        return result;
+    }
+
     @Nullable
     @Override
     public INpc create(@Nullable String lookupName, String npcName, String type) {
@@ -218,6 +353,14 @@ public class Registry implements INpcRegistry {
             return current;
         }
 
+        if (_isLazyLoading) {
+            NpcDescriptor descriptor = new NpcDescriptor(this, lookupName, name, id, type, dataNode);
+            NpcWrapper wrapper = new NpcWrapper(descriptor);
+            _descriptors.put(lookupName, descriptor);
+            _wrappedMap.put(lookupName, wrapper);
+            return wrapper;
+        }
+
         Npc npc = _npcPool.createNpc(lookupName, name, id, type, this);
         if (npc != null) {
             npc.getTraits().load(dataNode.getNode("traits"));
@@ -231,32 +374,251 @@ public class Registry implements INpcRegistry {
         return null;
     }
 
+    /**
+     * Load NPC's from a data node.
+     *
+     * <p>NPC's are loaded synchronously and must be loaded on the main thread. Use
+     * {@link #loadAllAsync(IDataNode, Runnable)} to spread loading over multiple ticks.</p>
+     *
+     * @param dataNode  The data node to load from.
+     */
     @Override
     public boolean loadAll(IDataNode dataNode) {
         PreCon.notNull(dataNode);
 
+        beginLoad(dataNode);
+
         for (IDataNode npcNode : dataNode) {
-            load(npcNode);
+            loadSaved(npcNode);
         }
 
         return true;
     }
 
+    /**
+     * Load NPC's from a data node without freezing the main thread.
+     *
+     * <p>NPC's are loaded on the main thread over multiple ticks using at most
+     * {@link NpcLoadTask#DEFAULT_TICK_BUDGET} nanoseconds per tick. The data node
+     * should not be modified until loading is finished.</p>
+     *
+     * @param dataNode    The data node to load from.
+     * @param onComplete  Optional callback run on the main thread when loading is finished.
+     *
+     * @return  The load task, which can be used to track progress or wait for completion.
+     */
+    public NpcLoadTask loadAllAsync(IDataNode dataNode, @Nullable Runnable onComplete) {
+        PreCon.notNull(dataNode);
+
+        checkDisposed();
+
+        beginLoad(dataNode);
+
+        NpcLoadTask task = new NpcLoadTask(this, NpcLoadTask.DEFAULT_TICK_BUDGET);
+
+        if (onComplete != null)
+            task.onComplete(onComplete);
+
+        return task.start(dataNode);
+    }
+
+    /**
+     * Load an NPC from a child node of the data node NPC's are being loaded from
+     * using {@link #loadAll(IDataNode)} or {@link #loadAllAsync(IDataNode, Runnable)}.
+     *
+     * <p>NPC's that were not already loaded are marked as unchanged since their
+     * state matches the data node.</p>
+     *
+     * @param npcNode  The NPC data node.
+     *
+     * @return  The loaded NPC or null if the NPC could not be loaded.
+     */
+    @Nullable
+    public INpc loadSaved(IDataNode npcNode) {
+        PreCon.notNull(npcNode);
+
+        boolean isLoaded = _wrappedMap.containsKey(npcNode.getString("lookup"));
+
+        INpc npc = load(npcNode);
+
+        // newly loaded state matches the data node
+        if (npc != null && !isLoaded) {
+            Npc loaded = _npcMap.get(npc.getLookupName());
+            if (loaded != null)
+                loaded.clearDirty();
+            else
+                _descriptors.get(npc.getLookupName()).setDirty(false);
+        }
+
+        return npc;
+    }
+
+    /**
+     * Load NPC's from a YAML or binary NPC file.
+     *
+     * <p>The file format is detected from the file header.</p>
+     *
+     * @param file  The file to load.
+     *
+     * @return  True if the file was read, otherwise false.
+     */
+    public boolean loadAll(File file) {
+        PreCon.notNull(file);
+
+        checkDisposed();
+
+        List<NpcSnapshot> snapshots;
+        try {
+            snapshots = NpcFiles.read(file);
+        }
+        catch (IOException e) {
+            Msg.severe("Failed to read Npc file: {0}", file.getAbsolutePath());
+            e.printStackTrace();
+            return false;
+        }
+
+        for (NpcSnapshot snapshot : snapshots) {
+            load(snapshot.toDataNode(_plugin));
+        }
+
+        return true;
+    }
+
+    /**
+     * Load NPC's from a YAML or binary NPC file without freezing the main thread.
+     *
+     * <p>The file is read and validated asynchronously. NPC's are then loaded on
+     * the main thread over multiple ticks using at most {@link NpcLoadTask#DEFAULT_TICK_BUDGET}
+     * nanoseconds per tick.</p>
+     *
+     * @param file        The file to load.
+     * @param onComplete  Optional callback run on the main thread when loading is finished.
+     *
+     * @return  The load task, which can be used to track progress or wait for completion.
+     */
+    public NpcLoadTask loadAllAsync(File file, @Nullable Runnable onComplete) {
+        PreCon.notNull(file);
+
+        checkDisposed();
+
+        NpcLoadTask task = new NpcLoadTask(this, NpcLoadTask.DEFAULT_TICK_BUDGET);
+
+        if (onComplete != null)
+            task.onComplete(onComplete);
+
+        return task.start(file);
+    }
+
+    /**
+     * Save NPC's to a data node.
+     *
+     * <p>Only NPC's that have changed since they were last saved are written
+     * if the data node is the same node that was last saved to or loaded from.
+     * The data node is saved once after all NPC's are written.</p>
+     *
+     * @param dataNode  The data node to save to.
+     */
     @Override
     public boolean saveAll(IDataNode dataNode) {
         PreCon.notNull(dataNode);
 
-        Collection<Npc> npcs = _npcMap.values();
+        boolean isFullSave = dataNode != _lastSaveNode;
+        int saved = 0;
+
+        for (Npc npc : _npcMap.values()) {
+
+            if (!isFullSave && !npc.isDirty())
+                continue;
+
+            npc.saveData(dataNode.getNode(npc.getLookupName()));
+            saved++;
+        }
+
+        for (NpcDescriptor descriptor : _descriptors.values()) {
+
+            if (!isFullSave && !descriptor.isDirty())
+                continue;
 
-        for (INpc npc : npcs) {
-            npc.save(dataNode.getNode(npc.getLookupName()));
+            descriptor.writeData(dataNode.getNode(descriptor.getLookupName()));
+            descriptor.setDirty(false);
+            saved++;
         }
 
-        dataNode.save();
+        _lastSaveNode = dataNode;
+
+        if (saved > 0 || isFullSave)
+            dataNode.save();
 
         return true;
     }
 
+    /**
+     * Save the registry's NPC's to a file without blocking the main thread.
+     *
+     * <p>NPC state is captured on the main thread. Serialization and writing
+     * the file is done asynchronously. The file format is set in the
+     * {@link #getAsyncSaver} settings.</p>
+     *
+     * @param file        The file to save to.
+     * @param onComplete  Optional callback run on the main thread after the file is
+     *                    successfully saved.
+     *
+     * @return  A future that completes when the file is saved. If the save fails,
+     * the future completes with the exception and the callback is not run.
+     */
+    public Future<?> saveAllAsync(File file, @Nullable Runnable onComplete) {
+        PreCon.notNull(file);
+
+        checkDisposed();
+
+        return _asyncSaver.save(file, onComplete);
+    }
+
+    /**
+     * Get the asynchronous saver used by {@link #saveAllAsync}.
+     */
+    public AsyncNpcSaver getAsyncSaver() {
+        return _asyncSaver;
+    }
+
+    /**
+     * Get the registry's spawned NPC's within a radius of a location.
+     *
+     * @param center  The center of the search.
+     * @param radius  The search radius.
+     * @param output  The output collection to add results to.
+     *
+     * @param <T>  The output collection type.
+     *
+     * @return  The output collection.
+     */
+    public <T extends Collection<Npc>> T getInRadius(Location center, double radius, T output) {
+        return CitizensProvider.getInstance().getSpatialIndex().getInRadius(center, radius, this, output);
+    }
+
+    /**
+     * Get the registry's spawned NPC's in a chunk.
+     *
+     * @param world   The world.
+     * @param chunkX  The chunk X coordinate.
+     * @param chunkZ  The chunk Z coordinate.
+     * @param output  The output collection to add results to.
+     *
+     * @param <T>  The output collection type.
+     *
+     * @return  The output collection.
+     */
+    public <T extends Collection<Npc>> T getInChunk(World world, int chunkX, int chunkZ, T output) {
+        return CitizensProvider.getInstance().getSpatialIndex().getInChunk(world, chunkX, chunkZ, this, output);
+    }
+
+    /**
+     * Get the {@link Npc}'s in the registry.
+     */
+    public Collection<Npc> getNpcs() {
+        return Collections.unmodifiableCollection(_npcMap.values());
+    }
+
     @Override
     public Collection<INpc> all() {
         return Collections.unmodifiableCollection(_wrappedMap.values());
@@ -303,7 +665,18 @@ public class Registry implements INpcRegistry {
         _dataStore.getStorage().getDataNode().clear();
         _traits.dispose();
 
-        _npcPool.dispose();
+        // NPC's leased from the shared pool were returned when disposed
+        if (_isPoolOwner)
+            _npcPool.dispose();
+    }
+
+    /**
+     * Determine if the registry has subscribers for an event type.
+     *
+     * @param type  The event type.
+     */
+    public boolean hasSubscribers(NpcEventType type) {
+        return _agents.hasSubscribers(type);
     }
 
     @Override
@@ -328,7 +701,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNavStart").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.NAV_START, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -339,7 +712,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNavPause").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.NAV_PAUSE, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -350,7 +723,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNavCancel").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.NAV_CANCEL, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -361,7 +734,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNavComplete").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.NAV_COMPLETE, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -372,7 +745,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNavTimeout").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.NAV_TIMEOUT, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -383,7 +756,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcSpawn").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.SPAWN, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -394,7 +767,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcDespawn").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.DESPAWN, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -405,7 +778,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcClick").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.CLICK, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -416,7 +789,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcRightClick").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.RIGHT_CLICK, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -427,7 +800,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcLeftClick").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.LEFT_CLICK, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -438,7 +811,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcEntityTarget").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.ENTITY_TARGET, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -449,7 +822,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcDamage").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.DAMAGE, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -460,7 +833,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcDamageByBlock").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.DAMAGE_BY_BLOCK, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -471,7 +844,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcDamageByEntity").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.DAMAGE_BY_ENTITY, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -482,7 +855,7 @@ public class Registry implements INpcRegistry {
 
         checkDisposed();
 
-        _agents.getAgent("onNpcDeath").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.DEATH, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -490,91 +863,142 @@ public class Registry implements INpcRegistry {
     public void onNavStart(INpc npc) {
         PreCon.notNull(npc);
 
-        _agents.update("onNavStart", npc);
+        _agents.update(NpcEventType.NAV_START, npc);
     }
 
     public void onNavPause(INpc npc) {
         PreCon.notNull(npc);
 
-        _agents.update("onNavPause", npc);
+        _agents.update(NpcEventType.NAV_PAUSE, npc);
     }
 
     public void onNavCancel(INpc npc) {
         PreCon.notNull(npc);
 
-        _agents.update("onNavCancel", npc);
+        _agents.update(NpcEventType.NAV_CANCEL, npc);
     }
 
     public void onNavComplete(INpc npc) {
         PreCon.notNull(npc);
 
-        _agents.update("onNavComplete", npc);
+        _agents.update(NpcEventType.NAV_COMPLETE, npc);
     }
 
     public void onNavTimeout(INpc npc) {
         PreCon.notNull(npc);
 
-        _agents.update("onNavTimeout", npc);
+        _agents.update(NpcEventType.NAV_TIMEOUT, npc);
     }
 
     public void onNpcSpawn(NpcSpawnEvent event) {
         PreCon.notNull(event);
 
-        _agents.update("onNpcSpawn", event);
+        _agents.update(NpcEventType.SPAWN, event);
     }
 
     public void onNpcDespawn(NpcDespawnEvent event) {
         PreCon.notNull(event);
 
-        _agents.update("onNpcDespawn", event);
+        _agents.update(NpcEventType.DESPAWN, event);
     }
 
     public void onNpcClick(NpcClickEvent event) {
         PreCon.notNull(event);
 
-        _agents.update("onNpcClick", event);
+        _agents.update(NpcEventType.CLICK, event);
     }
 
     public void onNpcRightClick(NpcRightClickEvent event) {
         PreCon.notNull(event);
 
-        _agents.update("onNpcRightClick", event);
+        _agents.update(NpcEventType.RIGHT_CLICK, event);
     }
 
     public void onNpcLeftClick(NpcLeftClickEvent event) {
         PreCon.notNull(event);
 
-        _agents.update("onNpcLeftClick", event);
+        _agents.update(NpcEventType.LEFT_CLICK, event);
     }
 
     public void onNpcEntityTarget(NpcTargetedEvent event) {
         PreCon.notNull(event);
 
-        _agents.update("onNpcEntityTarget", event);
+        _agents.update(NpcEventType.ENTITY_TARGET, event);
     }
 
     public void onNpcDamage(NpcDamageEvent event) {
         PreCon.notNull(event);
 
-        _agents.update("onNpcDamage", event);
+        _agents.update(NpcEventType.DAMAGE, event);
     }
 
     public void onNpcDamageByBlock(NpcDamageByBlockEvent event) {
         PreCon.notNull(event);
 
-        _agents.update("onNpcDamageByBlock", event);
+        _agents.update(NpcEventType.DAMAGE_BY_BLOCK, event);
     }
 
     public void onNpcDamageByEntity(NpcDamageByEntityEvent event) {
         PreCon.notNull(event);
 
-        _agents.update("onNpcDamageByEntity", event);
+        _agents.update(NpcEventType.DAMAGE_BY_ENTITY, event);
     }
 
     public void onNpcDeath(NpcDeathEvent event) {
         PreCon.notNull(event);
 
-        _agents.update("onNpcDeath", event);
+        _agents.update(NpcEventType.DEATH, event);
+    }
+
+    /*
+     * Prepare dirty tracking before loading NPC's from a data node.
+     */
+    private void beginLoad(IDataNode dataNode) {
+
+        // NPC's that are already loaded may not be in the data node
+        if (dataNode != _lastSaveNode) {
+            for (Npc npc : _npcMap.values()) {
+                npc.markDirty();
+            }
+            for (NpcDescriptor descriptor : _descriptors.values()) {
+                descriptor.setDirty(true);
+            }
+            _lastSaveNode = dataNode;
+        }
+    }
+
+    /*
+     * Create the Npc for a descriptor. Invoked from NpcWrapper when the
+     * NPC is first used.
+     */
+    @Nullable
+    Npc materialize(NpcDescriptor descriptor) {
+
+        if (_descriptors.remove(descriptor.getLookupName()) != descriptor)
+            throw new IllegalStateException("Npc descriptor is not pending in the registry.");
+
+        Npc npc = _npcPool.createNpc(descriptor.getLookupName(), descriptor.getName(),
+                descriptor.getId(), descriptor.getType(), this);
+
+        if (npc == null) {
+            _wrappedMap.remove(descriptor.getLookupName());
+            return null;
+        }
+
+        npc.getTraits().load(descriptor.getDataNode().getNode("traits"));
+        _npcMap.put(npc.getLookupName(), npc);
+
+        if (!descriptor.isDirty())
+            npc.clearDirty();
+
+        return npc;
+    }
+
+    // invoked from NpcWrapper#dispose
+    void remove(NpcDescriptor descriptor) {
+        PreCon.notNull(descriptor);
+        _descriptors.remove(descriptor.getLookupName());
+        _wrappedMap.remove(descriptor.getLookupName());
     }
 
     // invoked from Npc#dispose
@@ -0,0 +1,170 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+import org.bukkit.entity.Entity;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Tracks spawned {@link Npc}'s by their entity.
+ *
+ * <p>NPC's are indexed by entity id in an {@link IntNpcMap}. Entities are
+ * strongly referenced until removed when the NPC is despawned.</p>
+ *
+ * <p>A counting filter of entity ids allows entities that are not spawned
+ * NPC's to be rejected without a map lookup.</p>
+ *
+ * <p>Keeps a cached array snapshot of the spawned NPC's which is only rebuilt
+ * after the set is modified so that the set can be iterated every tick without
+ * allocating.</p>
+ */
+public class SpawnedNpcs {
+
+    private static final Npc[] EMPTY = new Npc[0];
+    private static final int FILTER_SIZE = 4096;
+    private static final int FILTER_MASK = FILTER_SIZE - 1;
+
+    private final IntNpcMap _map = new IntNpcMap(15);
+    private final int[] _filter = new int[FILTER_SIZE];
+
+    private Npc[] _snapshot = EMPTY;
+    private int _version;
+    private int _snapshotVersion;
+
+    /**
+     * Get the number of spawned NPC's.
+     */
+    public int size() {
+        return _map.size();
+    }
+
+    /**
+     * Get the version stamp of the set. The version is incremented
+     * every time the set is modified.
+     */
+    public int getVersion() {
+        return _version;
+    }
+
+    /**
+     * Determine if an entity id might belong to a spawned NPC.
+     *
+     * <p>A false result means the entity is definitely not a spawned NPC.</p>
+     *
+     * @param entityId  The entity id.
+     */
+    public boolean mightContain(int entityId) {
+        return _filter[entityId & FILTER_MASK] != 0;
+    }
+
+    /**
+     * Get the {@link Npc} for an entity.
+     *
+     * @param entity  The entity.
+     *
+     * @return  The {@link Npc} or null if the entity is not a spawned NPC.
+     */
+    @Nullable
+    public Npc get(Entity entity) {
+        PreCon.notNull(entity);
+
+        int id = entity.getEntityId();
+        if (!mightContain(id))
+            return null;
+
+        return _map.get(id, entity);
+    }
+
+    /**
+     * Add a spawned {@link Npc}.
+     *
+     * @param entity  The NPC's entity.
+     * @param npc     The {@link Npc}.
+     */
+    public void put(Entity entity, Npc npc) {
+        PreCon.notNull(entity);
+        PreCon.notNull(npc);
+
+        int id = entity.getEntityId();
+
+        Npc previous = _map.put(id, entity, npc);
+        if (previous == null)
+            _filter[id & FILTER_MASK]++;
+
+        if (previous != npc)
+            _version++;
+    }
+
+    /**
+     * Remove a spawned {@link Npc}.
+     *
+     * @param entity  The NPC's entity.
+     */
+    public void remove(Entity entity) {
+        PreCon.notNull(entity);
+
+        int id = entity.getEntityId();
+
+        if (_map.remove(id, entity) != null) {
+            _filter[id & FILTER_MASK]--;
+            _version++;
+        }
+    }
+
+    /**
+     * Remove all spawned {@link Npc}'s.
+     */
+    public void clear() {
+
+        if (_map.isEmpty())
+            return;
+
+        _map.clear();
+        Arrays.fill(_filter, 0);
+        _version++;
+    }
+
+    /**
+     * Get an array snapshot of the spawned NPC's.
+     *
+     * <p>The returned array is shared and must not be modified. It may contain
+     * NPC's that were despawned after the snapshot was taken, check
+     * {@link Npc#isSpawned} before use.</p>
+     */
+    public Npc[] snapshot() {
+
+        if (_snapshotVersion != _version) {
+            _snapshot = _map.isEmpty()
+                    ? EMPTY
+                    : _map.toArray();
+            _snapshotVersion = _version;
+        }
+
+        return _snapshot;
+    }
+}
@@ -105,16 +105,6 @@ public class ActionContainer
         }
     }
 
-    @Override
-    public boolean canRun(INpcState state) {
-        return getAction().canRun(state);
-    }
-
-    @Override
-    public float getCost(INpcState state) {
-        return getAction().getCost(state);
-    }
-
     @Override
     public void pause(INpcState state) {
         getAction().pause(state);
@@ -62,7 +62,7 @@ public class ActionPool
 
         for (ActionContainer action : _pool) {
 
-            if (!action.canRun(getNpc()))
+            if (!action.isRunnable(getNpc()))
                 continue;
 
             _filter.add(action);
@@ -76,6 +76,16 @@ public class ActionPool
         _pool.add((ActionContainer)behaviour);
     }
 
+    @Override
+    protected boolean removeBehaviour(BehaviourContainer<INpcAction, INpcActionAgent> behaviour) {
+        return _pool.remove(behaviour);
+    }
+
+    @Override
+    protected void clearBehaviours() {
+        _pool.clear();
+    }
+
     @Override
     protected BehaviourContainer<INpcAction, INpcActionAgent> createContainer(
             INpcAction behaviour, boolean forMatch) {
@@ -0,0 +1,190 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.ai;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+
+/**
+ * AI level of detail settings for the NPC's in a registry.
+ *
+ * <p>NPC's within the full range of a player run AI every tick. NPC's within
+ * the reduced range run AI at the reduced interval. NPC's beyond the reduced
+ * range do not run AI until a player comes within range.</p>
+ *
+ * <p>Disabled by default.</p>
+ */
+public class AiLodSettings {
+
+    private boolean _isEnabled;
+    private double _fullRange = 32;
+    private double _fullRangeSq = 32 * 32;
+    private double _reducedRange = 96;
+    private double _reducedRangeSq = 96 * 96;
+    private int _reducedInterval = 5;
+    private int _checkInterval = 20;
+
+    /**
+     * Determine if level of detail is enabled.
+     */
+    public boolean isEnabled() {
+        return _isEnabled;
+    }
+
+    /**
+     * Set level of detail enabled.
+     *
+     * @param isEnabled  True to enable, otherwise false.
+     *
+     * @return  Self for chaining.
+     */
+    public AiLodSettings setEnabled(boolean isEnabled) {
+        _isEnabled = isEnabled;
+        return this;
+    }
+
+    /**
+     * Get the max distance from a player an NPC can be to run AI every tick.
+     */
+    public double getFullRange() {
+        return _fullRange;
+    }
+
+    /**
+     * Set the max distance from a player an NPC can be to run AI every tick.
+     *
+     * <p>The reduced range is increased to the full range if it is less.</p>
+     *
+     * @param range  The range in blocks.
+     *
+     * @return  Self for chaining.
+     */
+    public AiLodSettings setFullRange(double range) {
+        PreCon.greaterThanZero(range, "range");
+
+        _fullRange = range;
+        _fullRangeSq = range * range;
+
+        if (_reducedRange < range) {
+            _reducedRange = range;
+            _reducedRangeSq = _fullRangeSq;
+        }
+        return this;
+    }
+
+    /**
+     * Get the max distance from a player an NPC can be to run AI
+     * at the reduced rate.
+     */
+    public double getReducedRange() {
+        return _reducedRange;
+    }
+
+    /**
+     * Set the max distance from a player an NPC can be to run AI
+     * at the reduced rate.
+     *
+     * <p>The full range is decreased to the reduced range if it is greater.</p>
+     *
+     * @param range  The range in blocks.
+     *
+     * @return  Self for chaining.
+     */
+    public AiLodSettings setReducedRange(double range) {
+        PreCon.greaterThanZero(range, "range");
+
+        _reducedRange = range;
+        _reducedRangeSq = range * range;
+
+        if (_fullRange > range) {
+            _fullRange = range;
+            _fullRangeSq = _reducedRangeSq;
+        }
+        return this;
+    }
+
+    /**
+     * Get the interval in ticks AI is run at in the reduced tier.
+     */
+    public int getReducedInterval() {
+        return _reducedInterval;
+    }
+
+    /**
+     * Set the interval in ticks AI is run at in the reduced tier.
+     *
+     * @param ticks  The interval in ticks.
+     *
+     * @return  Self for chaining.
+     */
+    public AiLodSettings setReducedInterval(int ticks) {
+        PreCon.greaterThanZero(ticks, "ticks");
+
+        _reducedInterval = ticks;
+        return this;
+    }
+
+    /**
+     * Get the interval in ticks that an NPC's tier is re-evaluated.
+     */
+    public int getCheckInterval() {
+        return _checkInterval;
+    }
+
+    /**
+     * Set the interval in ticks that an NPC's tier is re-evaluated.
+     *
+     * @param ticks  The interval in ticks.
+     *
+     * @return  Self for chaining.
+     */
+    public AiLodSettings setCheckInterval(int ticks) {
+        PreCon.greaterThanZero(ticks, "ticks");
+
+        _checkInterval = ticks;
+        return this;
+    }
+
+    /**
+     * Get the tier for a squared distance to the nearest player.
+     *
+     * @param distanceSq  The squared distance.
+     */
+    public AiLodTier getTier(double distanceSq) {
+        if (distanceSq <= _fullRangeSq)
+            return AiLodTier.FULL;
+
+        if (distanceSq <= _reducedRangeSq)
+            return AiLodTier.REDUCED;
+
+        return AiLodTier.SUSPENDED;
+    }
+
+    /**
+     * Get the squared full range.
+     */
+    double getFullRangeSq() {
+        return _fullRangeSq;
+    }
+}
@@ -27,23 +27,141 @@ package com.jcwhatever.nucleus.providers.citizensnpc.ai;
 import com.jcwhatever.nucleus.providers.citizensnpc.CitizensProvider;
 import com.jcwhatever.nucleus.providers.citizensnpc.Msg;
 import com.jcwhatever.nucleus.providers.citizensnpc.Npc;
+import com.jcwhatever.nucleus.providers.citizensnpc.Registry;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
 
-import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * Runs all AI goals in all spawned NPC's.
+ * Runs AI goals in spawned NPC's.
+ *
+ * <p>NPC's are run in round-robin order. If a per-tick time budget is set, the
+ * runner stops once the budget is used and resumes with the next NPC on the
+ * following tick.</p>
+ *
+ * <p>If AI level of detail is enabled in an NPC's registry, the NPC is run at a rate
+ * based on its distance to the nearest player. Goals are not run at all on throttled ticks,
+ * so {@link BehaviourAgent#getRunCount} continues to count actual runs.</p>
  */
 public class AiRunner implements Runnable {
 
+    private final Map<World, List<Player>> _players = new HashMap<>(5);
+    private final Location _npcLocation = new Location(null, 0, 0, 0);
+    private final Location _playerLocation = new Location(null, 0, 0, 0);
+
+    private long _tickBudget;
+    private int _cursor;
+    private long _tick;
+
+    private int _lastRunCount;
+    private int _lastSkippedCount;
+    private int _lastThrottledCount;
+    private int _lastDeferredCount;
+    private long _lastDuration;
+
+    /**
+     * Get the maximum time in nanoseconds the runner is allowed to
+     * spend running NPC AI per tick.
+     *
+     * <p>A value of 0 or less indicates no limit.</p>
+     */
+    public long getTickBudget() {
+        return _tickBudget;
+    }
+
+    /**
+     * Set the maximum time in nanoseconds the runner is allowed to
+     * spend running NPC AI per tick.
+     *
+     * <p>At least one NPC is always run per tick regardless of the budget.</p>
+     *
+     * @param nanos  The time budget. 0 or less for no limit.
+     */
+    public void setTickBudget(long nanos) {
+        _tickBudget = nanos;
+    }
+
+    /**
+     * Get the number of NPC's whose AI was run during the last tick.
+     */
+    public int getLastRunCount() {
+        return _lastRunCount;
+    }
+
+    /**
+     * Get the number of NPC's that were skipped during the last tick
+     * because they were not spawned.
+     */
+    public int getLastSkippedCount() {
+        return _lastSkippedCount;
+    }
+
+    /**
+     * Get the number of NPC's that were not run during the last tick
+     * because of their AI level of detail tier.
+     */
+    public int getLastThrottledCount() {
+        return _lastThrottledCount;
+    }
+
+    /**
+     * Get the number of NPC's that were deferred to the next tick during
+     * the last tick because the time budget was used.
+     */
+    public int getLastDeferredCount() {
+        return _lastDeferredCount;
+    }
+
+    /**
+     * Get the time in nanoseconds spent running AI during the last tick.
+     */
+    public long getLastDuration() {
+        return _lastDuration;
+    }
+
     @Override
     public void run() {
 
-        Collection<Npc> spawned = CitizensProvider.getSpawned();
+        Npc[] spawned = CitizensProvider.getSpawnedNpcs().snapshot();
+        int size = spawned.length;
+
+        long start = System.nanoTime();
+        int runCount = 0;
+        int skippedCount = 0;
+        int throttledCount = 0;
+        int processed = 0;
+
+        _tick++;
+        _players.clear();
+
+        if (_cursor >= size)
+            _cursor = 0;
 
-        for (Npc npc : spawned) {
+        int index = _cursor;
+
+        while (processed < size) {
+
+            Npc npc = spawned[index];
+
+            if (++index == size)
+                index = 0;
+
+            processed++;
+
+            if (!npc.isSpawned()) {
+                skippedCount++;
+                continue;
+            }
 
-            if (!npc.isSpawned())
+            if (!isLodDue(npc)) {
+                throttledCount++;
                 continue;
+            }
 
             try {
                 npc.getGoals().run();
@@ -52,6 +170,87 @@ public class AiRunner implements Runnable {
                 Msg.severe("Exception while running AI for Npc '{0}'.", npc.getLookupName());
                 e.printStackTrace();
             }
+
+            runCount++;
+
+            if (_tickBudget > 0 && System.nanoTime() - start >= _tickBudget)
+                break;
         }
+
+        _cursor = index;
+
+        _lastRunCount = runCount;
+        _lastSkippedCount = skippedCount;
+        _lastThrottledCount = throttledCount;
+        _lastDeferredCount = size - processed;
+        _lastDuration = System.nanoTime() - start;
+    }
+
+    /*
+     * Determine if an NPC's AI should run this tick based on its level of detail tier.
+     */
+    private boolean isLodDue(Npc npc) {
+
+        Registry registry = npc.getRegistry();
+        if (registry == null)
+            return true;
+
+        AiLodSettings settings = registry.getAiLodSettings();
+        if (!settings.isEnabled())
+            return true;
+
+        NpcGoals goals = npc.getGoals();
+
+        if (goals.isLodCheckDue(_tick)) {
+            double distanceSq = getNearestPlayerDistanceSq(npc, settings.getFullRangeSq());
+            goals.setLodTier(settings.getTier(distanceSq), _tick + settings.getCheckInterval());
+        }
+
+        if (!goals.isLodDue(_tick, settings))
+            return false;
+
+        goals.onLodRun(_tick);
+        return true;
+    }
+
+    /*
+     * Get the squared distance from an NPC to the nearest player in the same world.
+     * Stops searching once a player within the full range is found.
+     */
+    private double getNearestPlayerDistanceSq(Npc npc, double fullRangeSq) {
+
+        Entity entity = npc.getEntity();
+        if (entity == null)
+            return Double.MAX_VALUE;
+
+        Location location = entity.getLocation(_npcLocation);
+        World world = location.getWorld();
+
+        List<Player> players = _players.get(world);
+        if (players == null) {
+            players = world.getPlayers();
+            _players.put(world, players);
+        }
+
+        double nearest = Double.MAX_VALUE;
+
+        for (int i = 0; i < players.size(); i++) {
+
+            Location playerLocation = players.get(i).getLocation(_playerLocation);
+
+            double dx = playerLocation.getX() - location.getX();
+            double dy = playerLocation.getY() - location.getY();
+            double dz = playerLocation.getZ() - location.getZ();
+            double distanceSq = dx * dx + dy * dy + dz * dz;
+
+            if (distanceSq < nearest) {
+                nearest = distanceSq;
+
+                if (nearest <= fullRangeSq)
+                    break;
+            }
+        }
+
+        return nearest;
     }
 }
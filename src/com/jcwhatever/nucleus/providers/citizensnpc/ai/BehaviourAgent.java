@@ -25,6 +25,8 @@
 package com.jcwhatever.nucleus.providers.citizensnpc.ai;
 
 import com.jcwhatever.nucleus.providers.citizensnpc.Npc;
+import com.jcwhatever.nucleus.providers.citizensnpc.events.NpcEventAgents;
+import com.jcwhatever.nucleus.providers.citizensnpc.events.NpcEventType;
 import com.jcwhatever.nucleus.providers.npc.INpc;
 import com.jcwhatever.nucleus.providers.npc.ai.INpcBehaviour;
 import com.jcwhatever.nucleus.providers.npc.ai.INpcBehaviourAgent;
@@ -42,7 +44,6 @@ import com.jcwhatever.nucleus.providers.npc.events.NpcSpawnEvent;
 import com.jcwhatever.nucleus.providers.npc.events.NpcTargetedEvent;
 import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.nucleus.utils.observer.script.IScriptUpdateSubscriber;
-import com.jcwhatever.nucleus.utils.observer.update.NamedUpdateAgents;
 
 import java.util.Arrays;
 
@@ -64,7 +65,7 @@ public abstract class BehaviourAgent
 
     private final Npc _npc;
     private final BehaviourContainer<T, BA> _container;
-    private final NamedUpdateAgents _subscriberAgents;
+    private final NpcEventAgents _subscriberAgents;
 
     private long _runCount = 0;
     private boolean _isFinished;
@@ -132,8 +133,7 @@ public abstract class BehaviourAgent
 
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNpcSpawn")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.SPAWN, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -143,8 +143,7 @@ public abstract class BehaviourAgent
 
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNpcDespawn")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.DESPAWN, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -154,8 +153,7 @@ public abstract class BehaviourAgent
 
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNpcClick")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.CLICK, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -165,8 +163,7 @@ public abstract class BehaviourAgent
 
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNpcRightClick")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.RIGHT_CLICK, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -176,8 +173,7 @@ public abstract class BehaviourAgent
 
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNpcLeftClick")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.LEFT_CLICK, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -187,8 +183,7 @@ public abstract class BehaviourAgent
 
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNpcEntityTarget")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.ENTITY_TARGET, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -198,8 +193,7 @@ public abstract class BehaviourAgent
 
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNpcDamage")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.DAMAGE, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -209,8 +203,7 @@ public abstract class BehaviourAgent
 
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNpcDamageByBlock")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.DAMAGE_BY_BLOCK, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -220,8 +213,7 @@ public abstract class BehaviourAgent
 
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNpcDamageByEntity")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.DAMAGE_BY_ENTITY, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -231,8 +223,7 @@ public abstract class BehaviourAgent
 
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNpcDeath")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.DEATH, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -240,8 +231,7 @@ public abstract class BehaviourAgent
     public INpcBehaviourAgent onNavStart(IScriptUpdateSubscriber<INpc> subscriber) {
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNavStart")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.NAV_START, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -249,8 +239,7 @@ public abstract class BehaviourAgent
     public INpcBehaviourAgent onNavPause(IScriptUpdateSubscriber<INpc> subscriber) {
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNavPause")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.NAV_PAUSE, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -258,8 +247,7 @@ public abstract class BehaviourAgent
     public INpcBehaviourAgent onNavCancel(IScriptUpdateSubscriber<INpc> subscriber) {
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNavCancel")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.NAV_CANCEL, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -267,8 +255,7 @@ public abstract class BehaviourAgent
     public INpcBehaviourAgent onNavComplete(IScriptUpdateSubscriber<INpc> subscriber) {
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNavComplete")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.NAV_COMPLETE, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -276,8 +263,7 @@ public abstract class BehaviourAgent
     public INpcBehaviourAgent onNavTimeout(IScriptUpdateSubscriber<INpc> subscriber) {
         PreCon.notNull(subscriber);
 
-        _subscriberAgents.getAgent("onNavTimeout")
-                .addSubscriber(new BehaviourScriptSubscriber<>(this, subscriber));
+        _subscriberAgents.addSubscriber(NpcEventType.NAV_TIMEOUT, new BehaviourScriptSubscriber<>(this, subscriber));
         return this;
     }
 
@@ -312,9 +298,19 @@ public abstract class BehaviourAgent
 
     /**
      * Set the behaviours current running flag.
+     *
+     * <p>Also updates the owning NPC's index of active agents so events
+     * are only dispatched to subscribers of current behaviours.</p>
      */
     void setCurrent(boolean isCurrent) {
+
+        if (_isCurrent == isCurrent)
+            return;
+
         _isCurrent = isCurrent;
+
+        if (!_npc.isDisposed())
+            _npc.setAgentActive(this, isCurrent);
     }
 
     /**
@@ -24,10 +24,15 @@
 
 package com.jcwhatever.nucleus.providers.citizensnpc.ai;
 
+import com.jcwhatever.nucleus.providers.citizensnpc.Npc;
+import com.jcwhatever.nucleus.providers.citizensnpc.events.NpcEventType;
 import com.jcwhatever.nucleus.providers.npc.ai.INpcBehaviour;
 import com.jcwhatever.nucleus.providers.npc.ai.INpcBehaviourAgent;
 import com.jcwhatever.nucleus.providers.npc.ai.INpcState;
 
+import javax.annotation.Nullable;
+import java.util.Collection;
+
 /**
  * Container for an {@link com.jcwhatever.nucleus.providers.npc.ai.INpcBehaviour}.
  *
@@ -38,12 +43,121 @@ public abstract class BehaviourContainer<T extends INpcBehaviour, A extends INpc
 
     private final T _behaviour;
 
+    // wake trigger state. Null triggers indicates the behaviour is polled.
+    private NpcEventType[] _wakeTriggers;
+    private long[] _wakeCounts;
+    private boolean _isAwake = true;
+    private boolean _isTriggersInit;
+
+    // per tick cached canRun and getCost results
+    private boolean _isCached;
+    private boolean _isCacheInit;
+    private long _canRunPass = -1;
+    private boolean _canRun;
+    private long _costPass = -1;
+    private float _cost;
+
     BehaviourContainer(T goal) {
         _behaviour = goal;
     }
 
     public abstract BehaviourAgent getAgent();
 
+    /*
+     * Set the names of the NPC events that wake the behaviour. Null or empty
+     * to always poll the behaviour.
+     */
+    private void setWakeTriggers(@Nullable Collection<String> triggers) {
+
+        _isAwake = true;
+
+        if (triggers == null || triggers.isEmpty()) {
+            _wakeTriggers = null;
+            _wakeCounts = null;
+            return;
+        }
+
+        NpcEventType[] types = new NpcEventType[triggers.size()];
+        int i = 0;
+
+        for (String trigger : triggers) {
+            NpcEventType type = NpcEventType.fromAgentName(trigger);
+            if (type == null)
+                throw new IllegalArgumentException("Unknown wake trigger event: " + trigger);
+
+            types[i++] = type;
+        }
+
+        _wakeTriggers = types;
+        _wakeCounts = new long[types.length];
+    }
+
+    /**
+     * Determine if the behaviour can run.
+     *
+     * <p>The result is computed at most once per AI tick unless the behaviour
+     * implements {@link INpcUncachedBehaviour}.</p>
+     *
+     * @param state  The NPC state.
+     */
+    @Override
+    public boolean canRun(INpcState state) {
+
+        long pass = getCachePass();
+        if (pass == -1)
+            return _behaviour.canRun(state);
+
+        if (_canRunPass != pass) {
+            _canRun = _behaviour.canRun(state);
+            _canRunPass = pass;
+        }
+
+        return _canRun;
+    }
+
+    /**
+     * Get the cost of running the behaviour.
+     *
+     * <p>The result is computed at most once per AI tick unless the behaviour
+     * implements {@link INpcUncachedBehaviour}.</p>
+     *
+     * @param state  The NPC state.
+     */
+    @Override
+    public float getCost(INpcState state) {
+
+        long pass = getCachePass();
+        if (pass == -1)
+            return _behaviour.getCost(state);
+
+        if (_costPass != pass) {
+            _cost = _behaviour.getCost(state);
+            _costPass = pass;
+        }
+
+        return _cost;
+    }
+
+    /**
+     * Determine if the behaviour can be selected to run.
+     *
+     * <p>Behaviours that are asleep waiting for a wake trigger are not checked
+     * with {@link #canRun}.</p>
+     *
+     * @param state  The NPC state.
+     */
+    boolean isRunnable(INpcState state) {
+
+        if (!isAwake())
+            return false;
+
+        boolean canRun = canRun(state);
+        if (!canRun)
+            sleep();
+
+        return canRun;
+    }
+
     /**
      * Invoked to run behaviour or its child behaviors.
      *
@@ -86,4 +200,74 @@ public abstract class BehaviourContainer<T extends INpcBehaviour, A extends INpc
     protected T getBehaviour() {
         return _behaviour;
     }
+
+    /*
+     * Get the current AI pass of the owning NPC to use as the cache key.
+     * Returns -1 if results should not be cached.
+     */
+    private long getCachePass() {
+
+        if (!_isCacheInit) {
+            _isCacheInit = true;
+
+            // declared by implementing INpcUncachedBehaviour
+            _isCached = !(_behaviour instanceof INpcUncachedBehaviour);
+        }
+
+        if (!_isCached)
+            return -1;
+
+        BehaviourAgent agent = getAgent();
+        if (agent == null)
+            return -1;
+
+        NpcGoals goals = agent.getNpc().getGoals();
+        return goals.isInPass() ? goals.getPass() : -1;
+    }
+
+    /*
+     * Determine if the behaviour is awake. A behaviour without
+     * wake triggers is always awake.
+     */
+    private boolean isAwake() {
+
+        if (!_isTriggersInit) {
+            _isTriggersInit = true;
+
+            // declared by implementing INpcWakeTriggers
+            if (_behaviour instanceof INpcWakeTriggers)
+                setWakeTriggers(((INpcWakeTriggers) _behaviour).getWakeTriggers());
+        }
+
+        if (_isAwake || _wakeTriggers == null)
+            return true;
+
+        Npc npc = getAgent().getNpc();
+
+        for (int i = 0; i < _wakeTriggers.length; i++) {
+            if (npc.getEventCount(_wakeTriggers[i]) != _wakeCounts[i]) {
+                _isAwake = true;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /*
+     * Put the behaviour to sleep until one of its trigger events is fired.
+     */
+    private void sleep() {
+
+        if (_wakeTriggers == null)
+            return;
+
+        Npc npc = getAgent().getNpc();
+
+        for (int i = 0; i < _wakeTriggers.length; i++) {
+            _wakeCounts[i] = npc.getEventCount(_wakeTriggers[i]);
+        }
+
+        _isAwake = false;
+    }
 }
@@ -66,6 +66,10 @@ public abstract class BehaviourPool<T extends INpcBehaviour, A extends INpcBehav
 
     protected abstract void insertBehaviour(BehaviourContainer<T, A> container);
 
+    protected abstract boolean removeBehaviour(BehaviourContainer<T, A> container);
+
+    protected abstract void clearBehaviours();
+
     protected abstract BehaviourContainer<T, A> createContainer(T behaviour, boolean forMatch);
 
     @Nullable
@@ -112,14 +116,14 @@ public abstract class BehaviourPool<T extends INpcBehaviour, A extends INpcBehav
             return true;
         }
         else {
-            return getPoolList().remove(createContainer(behaviour, true));
+            return removeBehaviour(createContainer(behaviour, true));
         }
     }
 
     @Override
     public BehaviourPool<T, A> clear() {
 
-        getPoolList().clear();
+        clearBehaviours();
         _current = null;
         _currentOverride = null;
 
@@ -243,7 +247,7 @@ public abstract class BehaviourPool<T extends INpcBehaviour, A extends INpcBehav
         _currentCost = behaviour != null ? behaviour.getCost(_npc) : 0;
 
         if (behaviour != null) {
-            getPoolList().remove(behaviour);
+            removeBehaviour(behaviour);
             behaviour.getAgent().setCurrent(true);
         }
     }
@@ -106,7 +106,7 @@ public abstract class CompositeBehaviour<T extends INpcBehaviour, A extends INpc
 
         for (BehaviourContainer<T, A> container : _behaviours) {
 
-            if (container.getBehaviour().canRun(state)) {
+            if (container.canRun(state)) {
                 _canRun.add(container);
                 canRun = true;
             }
@@ -125,7 +125,7 @@ public abstract class CompositeBehaviour<T extends INpcBehaviour, A extends INpc
         for (BehaviourContainer<T, A> container : _behaviours) {
 
             if (_canRun.contains(container)) {
-                cost += container.getBehaviour().getCost(state);
+                cost += container.getCost(state);
             }
         }
 
@@ -88,6 +88,13 @@ public class GoalContainer
         return _priority.getPriority(_goals.getNpc());
     }
 
+    /**
+     * Determine if the goal priority is static and cannot change.
+     */
+    public boolean isStaticPriority() {
+        return _priority instanceof StaticGoalPriority;
+    }
+
     @Override
     public GoalAgent getAgent() {
         if (_agent == null)
@@ -125,16 +132,6 @@ public class GoalContainer
         }
     }
 
-    @Override
-    public boolean canRun(INpcState state) {
-        return getBehaviour().canRun(state);
-    }
-
-    @Override
-    public float getCost(INpcState state) {
-        return getBehaviour().getCost(state);
-    }
-
     @Override
     public void pause(INpcState state) {
         getBehaviour().pause(state);
@@ -0,0 +1,273 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.ai;
+
+import com.jcwhatever.nucleus.providers.npc.ai.INpcState;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Priority bucketed index of candidate goals.
+ *
+ * <p>Goals with a {@link StaticGoalPriority} are placed into a bucket for their
+ * priority. Buckets are evaluated from the highest priority down and evaluation stops
+ * at the first bucket that contains a runnable goal.</p>
+ *
+ * <p>Goals with a dynamic priority cannot be bucketed. Their priority is evaluated
+ * once per selection and they are merged into the bucket order.</p>
+ */
+class GoalIndex {
+
+    private final List<GoalContainer> _all = new ArrayList<>(5);
+    private final Map<GoalContainer, Bucket> _bucketMap = new HashMap<>(5);
+
+    // sorted from highest priority to lowest
+    private final List<Bucket> _buckets = new ArrayList<>(5);
+    private final List<GoalContainer> _dynamic = new ArrayList<>(3);
+
+    // dynamic candidates, sorted from highest priority to lowest
+    private GoalContainer[] _dynamicCandidates = new GoalContainer[3];
+    private int[] _dynamicPriorities = new int[3];
+    private int _dynamicCount;
+
+    /**
+     * Get all goals in the index.
+     */
+    List<GoalContainer> all() {
+        return _all;
+    }
+
+    /**
+     * Get a goal by name.
+     *
+     * @param name  The name of the goal.
+     *
+     * @return  The goal or null if not found.
+     */
+    @Nullable
+    GoalContainer get(String name) {
+        for (GoalContainer goal : _all) {
+            if (goal.getName().equals(name))
+                return goal;
+        }
+        return null;
+    }
+
+    /**
+     * Add a goal to the index.
+     *
+     * @param goal  The goal to add.
+     */
+    void add(GoalContainer goal) {
+
+        _all.add(goal);
+
+        if (!goal.isStaticPriority()) {
+            _dynamic.add(goal);
+            return;
+        }
+
+        int priority = goal.getPriority();
+        Bucket bucket = null;
+        int index = 0;
+
+        for (; index < _buckets.size(); index++) {
+
+            Bucket current = _buckets.get(index);
+
+            if (current.priority == priority) {
+                bucket = current;
+                break;
+            }
+
+            if (current.priority < priority)
+                break;
+        }
+
+        if (bucket == null) {
+            bucket = new Bucket(priority);
+            _buckets.add(index, bucket);
+        }
+
+        // most recently added goals are evaluated first
+        bucket.goals.add(0, goal);
+        _bucketMap.put(goal, bucket);
+    }
+
+    /**
+     * Remove a goal from the index.
+     *
+     * @param goal  The goal to remove. May be a container used for matching.
+     *
+     * @return  True if the goal was found and removed.
+     */
+    boolean remove(GoalContainer goal) {
+
+        if (!_all.remove(goal))
+            return false;
+
+        Bucket bucket = _bucketMap.remove(goal);
+        if (bucket == null) {
+            _dynamic.remove(goal);
+            return true;
+        }
+
+        bucket.goals.remove(goal);
+
+        if (bucket.goals.isEmpty())
+            _buckets.remove(bucket);
+
+        return true;
+    }
+
+    /**
+     * Remove all goals.
+     */
+    void clear() {
+        _all.clear();
+        _bucketMap.clear();
+        _buckets.clear();
+        _dynamic.clear();
+        clearDynamicCandidates();
+    }
+
+    /**
+     * Select the highest priority runnable goals.
+     *
+     * <p>Goals whose priority is less than the specified minimum priority are
+     * never checked to see if they can run. Goals waiting on a wake trigger
+     * are skipped.</p>
+     *
+     * @param minPriority  The minimum priority.
+     * @param state        The NPC state.
+     * @param output       The output list to place the selected goals into.
+     */
+    void select(int minPriority, INpcState state, List<GoalContainer> output) {
+
+        output.clear();
+
+        collectDynamicCandidates(minPriority);
+
+        int bucketIndex = 0;
+        int dynamicIndex = 0;
+
+        while (output.isEmpty()) {
+
+            boolean hasBucket = bucketIndex < _buckets.size();
+            boolean hasDynamic = dynamicIndex < _dynamicCount;
+
+            if (!hasBucket && !hasDynamic)
+                break;
+
+            int priority = hasBucket
+                    ? _buckets.get(bucketIndex).priority
+                    : Integer.MIN_VALUE;
+
+            if (hasDynamic && _dynamicPriorities[dynamicIndex] > priority)
+                priority = _dynamicPriorities[dynamicIndex];
+
+            if (priority < minPriority)
+                break;
+
+            if (hasBucket && _buckets.get(bucketIndex).priority == priority) {
+
+                List<GoalContainer> goals = _buckets.get(bucketIndex).goals;
+
+                for (int i = 0; i < goals.size(); i++) {
+                    GoalContainer goal = goals.get(i);
+
+                    if (goal.isRunnable(state))
+                        output.add(goal);
+                }
+
+                bucketIndex++;
+            }
+
+            while (dynamicIndex < _dynamicCount && _dynamicPriorities[dynamicIndex] == priority) {
+
+                GoalContainer goal = _dynamicCandidates[dynamicIndex];
+
+                if (goal.isRunnable(state))
+                    output.add(goal);
+
+                dynamicIndex++;
+            }
+        }
+
+        clearDynamicCandidates();
+    }
+
+    /*
+     * Evaluate the priority of dynamic goals and insert the goals at or above
+     * the minimum priority into the sorted candidate arrays.
+     */
+    private void collectDynamicCandidates(int minPriority) {
+
+        for (int i = 0; i < _dynamic.size(); i++) {
+
+            GoalContainer goal = _dynamic.get(i);
+            int priority = goal.getPriority();
+
+            if (priority < minPriority)
+                continue;
+
+            if (_dynamicCount == _dynamicCandidates.length) {
+                _dynamicCandidates = Arrays.copyOf(_dynamicCandidates, _dynamicCount * 2);
+                _dynamicPriorities = Arrays.copyOf(_dynamicPriorities, _dynamicCount * 2);
+            }
+
+            int index = _dynamicCount;
+
+            while (index > 0 && _dynamicPriorities[index - 1] < priority) {
+                _dynamicCandidates[index] = _dynamicCandidates[index - 1];
+                _dynamicPriorities[index] = _dynamicPriorities[index - 1];
+                index--;
+            }
+
+            _dynamicCandidates[index] = goal;
+            _dynamicPriorities[index] = priority;
+            _dynamicCount++;
+        }
+    }
+
+    private void clearDynamicCandidates() {
+        Arrays.fill(_dynamicCandidates, 0, _dynamicCount, null);
+        _dynamicCount = 0;
+    }
+
+    private static class Bucket {
+        final int priority;
+        final List<GoalContainer> goals = new ArrayList<>(3);
+
+        Bucket(int priority) {
+            this.priority = priority;
+        }
+    }
+}
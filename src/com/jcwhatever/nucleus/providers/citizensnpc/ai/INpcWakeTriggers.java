@@ -0,0 +1,49 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.ai;
+
+import java.util.Collection;
+
+/**
+ * Optional interface for an {@link com.jcwhatever.nucleus.providers.npc.ai.goals.INpcGoal}
+ * or {@link com.jcwhatever.nucleus.providers.npc.ai.actions.INpcAction} that can only
+ * become runnable after specific NPC events.
+ *
+ * <p>A behaviour that declares wake triggers is not checked with {@code canRun} during
+ * selection until one of its trigger events is fired on the NPC. After waking, the behaviour
+ * goes back to sleep the next time {@code canRun} returns false.</p>
+ *
+ * <p>Trigger names are the names of the NPC events, i.e. "onNpcDamage", "onNpcClick",
+ * "onNavComplete", "onNpcSpawn".</p>
+ */
+public interface INpcWakeTriggers {
+
+    /**
+     * Get the names of the events that wake the behaviour.
+     *
+     * <p>Invoked once when the behaviour is first considered for selection.</p>
+     */
+    Collection<String> getWakeTriggers();
+}
@@ -37,7 +37,6 @@ import com.jcwhatever.nucleus.utils.PreCon;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.ListIterator;
 
 /**
  * Implementation of {@link INpcGoals}.
@@ -48,11 +47,20 @@ public class NpcGoals extends BehaviourPool<INpcGoal, INpcGoalAgent>
         implements INpcGoals, IDisposable {
 
     private final Npc _npc;
-    private final List<GoalContainer> _candidates = new ArrayList<>(5);
+    private final GoalIndex _candidates = new GoalIndex();
 
     private List<GoalContainer> _filter;
     private boolean _isDisposed;
 
+    // AI pass counter used to cache behaviour results for the duration of a tick
+    private long _pass;
+    private boolean _isInPass;
+
+    // AI level of detail state
+    private AiLodTier _lodTier = AiLodTier.FULL;
+    private long _lodCheckTick;
+    private long _lodRunTick;
+
     /**
      * Constructor.
      *
@@ -68,9 +76,17 @@ public class NpcGoals extends BehaviourPool<INpcGoal, INpcGoalAgent>
      */
     public void init() {
         _isDisposed = false;
+        resetLod();
         resume();
     }
 
+    @Override
+    public NpcGoals reset() {
+        super.reset();
+        resetLod();
+        return this;
+    }
+
     @Override
     public INpcGoals add(int priority, INpcGoal goal) {
         PreCon.greaterThanZero(priority, "priority");
@@ -137,7 +153,92 @@ public class NpcGoals extends BehaviourPool<INpcGoal, INpcGoalAgent>
         setCurrent(null, false);
         clear();
         _filter = null;
+        _npc.getState().clear();
+
+    }
+
+    /**
+     * Get the AI pass counter. Incremented each time the goals are run.
+     */
+    long getPass() {
+        return _pass;
+    }
+
+    /**
+     * Determine if the goals are currently being run.
+     */
+    boolean isInPass() {
+        return _isInPass;
+    }
+
+    @Override
+    boolean run() {
+
+        _pass++;
+        _isInPass = true;
+
+        _npc.getState().capture(_pass);
+
+        try {
+            return super.run();
+        }
+        finally {
+            _isInPass = false;
+        }
+    }
+
+    /**
+     * Get the current AI level of detail tier.
+     */
+    public AiLodTier getLodTier() {
+        return _lodTier;
+    }
+
+    /**
+     * Determine if the goals should be run on the specified tick based on
+     * the current level of detail tier.
+     *
+     * @param tick      The current AI tick.
+     * @param settings  The owning registry's level of detail settings.
+     */
+    boolean isLodDue(long tick, AiLodSettings settings) {
+        switch (_lodTier) {
+            case FULL:
+                return true;
+            case REDUCED:
+                return tick - _lodRunTick >= settings.getReducedInterval();
+            default:
+                return false;
+        }
+    }
 
+    /**
+     * Determine if the level of detail tier should be re-evaluated.
+     *
+     * @param tick  The current AI tick.
+     */
+    boolean isLodCheckDue(long tick) {
+        return tick >= _lodCheckTick;
+    }
+
+    /**
+     * Set the level of detail tier.
+     *
+     * @param tier       The tier.
+     * @param nextCheck  The tick the tier should next be re-evaluated.
+     */
+    void setLodTier(AiLodTier tier, long nextCheck) {
+        _lodTier = tier;
+        _lodCheckTick = nextCheck;
+    }
+
+    /**
+     * Invoked when the goals are run by the AI runner.
+     *
+     * @param tick  The current AI tick.
+     */
+    void onLodRun(long tick) {
+        _lodRunTick = tick;
     }
 
     /**
@@ -155,11 +256,7 @@ public class NpcGoals extends BehaviourPool<INpcGoal, INpcGoalAgent>
     @Override
     @Nullable
     protected BehaviourContainer<INpcGoal, INpcGoalAgent> getBehaviour(String name) {
-        for (GoalContainer goal : _candidates) {
-            if (goal.getName().equals(name))
-                return goal;
-        }
-        return null;
+        return _candidates.get(name);
     }
 
     @Override
@@ -178,35 +275,22 @@ public class NpcGoals extends BehaviourPool<INpcGoal, INpcGoalAgent>
 
     @Override
     protected void insertBehaviour(BehaviourContainer<INpcGoal, INpcGoalAgent> behaviour) {
+        _candidates.add((GoalContainer) behaviour);
+    }
 
-        GoalContainer goal = (GoalContainer)behaviour;
-
-        ListIterator<GoalContainer> iterator = _candidates.listIterator();
-
-        // insert goal into the correct index in the list. Sorted from highest priority to lowest.
-        while (true) {
-
-            if (iterator.hasNext()) {
-
-                GoalContainer container = iterator.next();
-
-                int currPriority = container.getPriority();
+    @Override
+    protected boolean removeBehaviour(BehaviourContainer<INpcGoal, INpcGoalAgent> behaviour) {
+        return _candidates.remove((GoalContainer) behaviour);
+    }
 
-                if (goal.getPriority() >= currPriority) {
-                    iterator.add(goal);
-                    break;
-                }
-            }
-            else {
-                iterator.add(goal);
-                break;
-            }
-        }
+    @Override
+    protected void clearBehaviours() {
+        _candidates.clear();
     }
 
     @Override
     protected List<? extends BehaviourContainer<INpcGoal, INpcGoalAgent>> getPoolList() {
-        return _candidates;
+        return _candidates.all();
     }
 
     @Override
@@ -214,35 +298,13 @@ public class NpcGoals extends BehaviourPool<INpcGoal, INpcGoalAgent>
 
         if (_filter == null)
             _filter = new ArrayList<>(5);
-        else
-            _filter.clear();
 
-        int priority = 0;
         int currentPriority = getCurrent() != null
                 ? getCurrent().getPriority()
                 : 0;
 
-        // get highest priority candidates.
-        for (GoalContainer goal : _candidates) {
-
-            if (!goal.canRun(getNpc()))
-                continue;
-
-            int candidatePriority = goal.getPriority();
-
-            // skip goals with less priority than current goal
-            if (candidatePriority < currentPriority)
-                continue;
-
-            // clear lower priority results.
-            if (candidatePriority > priority)
-                _filter.clear();
-
-            // add candidate with priority equal to or greater than
-            // largest priority found so far.
-            _filter.add(goal);
-            priority = candidatePriority;
-        }
+        // get highest priority runnable candidates at or above the current goals priority.
+        _candidates.select(currentPriority, getNpc(), _filter);
 
         return _filter;
     }
@@ -280,6 +342,12 @@ public class NpcGoals extends BehaviourPool<INpcGoal, INpcGoalAgent>
         }
     }
 
+    private void resetLod() {
+        _lodTier = AiLodTier.FULL;
+        _lodCheckTick = 0;
+        _lodRunTick = 0;
+    }
+
     private void checkDisposed() {
         if (_isDisposed)
             throw new IllegalStateException("Cannot use disposed NpcGoals.");
@@ -0,0 +1,406 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.ai;
+
+import com.jcwhatever.nucleus.providers.citizensnpc.CitizensProvider;
+import com.jcwhatever.nucleus.providers.citizensnpc.Msg;
+import com.jcwhatever.nucleus.providers.citizensnpc.Npc;
+import com.jcwhatever.nucleus.utils.PreCon;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes perception facts for spawned NPC's once per perception interval
+ * so goals and actions can read them instead of scanning.
+ *
+ * <p>For each spawned NPC the nearest player, the nearest hostile NPC and the
+ * players in the NPC's field of view are found within the perception range. A hostile
+ * NPC is another spawned NPC whose navigator is targeting an entity aggressively.
+ * Line of sight is not checked.</p>
+ *
+ * <p>Players are bucketed in a spatial hash with cells the size of the perception range
+ * so each NPC only checks players in the 9 surrounding cells. Hostile NPC's are found
+ * using the provider's {@link com.jcwhatever.nucleus.providers.citizensnpc.NpcSpatialIndex}.</p>
+ *
+ * <p>Results are stored in each NPC's {@link NpcState}. Results are cleared when
+ * the NPC despawns and when perception is disabled. Disabled by default.</p>
+ */
+public class NpcPerception implements Runnable {
+
+    private static final int BUCKETS = 1024;
+    private static final int BUCKET_MASK = BUCKETS - 1;
+
+    private final int[] _heads = new int[BUCKETS];
+    private final int[] _visited = new int[9];
+    private final List<Npc> _nearby = new ArrayList<>(20);
+    private final Location _npcLocation = new Location(null, 0, 0, 0);
+    private final Location _playerLocation = new Location(null, 0, 0, 0);
+
+    // NPC's updated during the last update
+    private Npc[] _perceived = new Npc[0];
+
+    private Player[] _players = new Player[32];
+    private World[] _playerWorlds = new World[32];
+    private double[] _playerCoords = new double[32 * 3];
+    private int[] _next = new int[32];
+    private int _playerCount;
+
+    private boolean _isEnabled;
+    private double _range = 32;
+    private double _rangeSq = 32 * 32;
+    private double _fovCos = Math.cos(Math.toRadians(60));
+    private int _interval = 1;
+    private long _tick;
+    private long _lastDuration;
+
+    /**
+     * Determine if perception is enabled.
+     */
+    public boolean isEnabled() {
+        return _isEnabled;
+    }
+
+    /**
+     * Set perception enabled.
+     *
+     * @param isEnabled  True to enable, otherwise false.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcPerception setEnabled(boolean isEnabled) {
+        _isEnabled = isEnabled;
+        return this;
+    }
+
+    /**
+     * Get the max distance an NPC can perceive players and hostile NPC's.
+     */
+    public double getRange() {
+        return _range;
+    }
+
+    /**
+     * Set the max distance an NPC can perceive players and hostile NPC's.
+     *
+     * @param range  The range in blocks.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcPerception setRange(double range) {
+        PreCon.greaterThanZero(range, "range");
+
+        _range = range;
+        _rangeSq = range * range;
+        return this;
+    }
+
+    /**
+     * Get the field of view angle in degrees used to find players in view.
+     */
+    public double getFieldOfView() {
+        return Math.toDegrees(Math.acos(_fovCos)) * 2;
+    }
+
+    /**
+     * Set the field of view angle in degrees used to find players in view.
+     *
+     * @param degrees  The angle. Maximum 360.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcPerception setFieldOfView(double degrees) {
+        PreCon.greaterThanZero(degrees, "degrees");
+
+        _fovCos = Math.cos(Math.toRadians(Math.min(degrees, 360) / 2));
+        return this;
+    }
+
+    /**
+     * Get the interval in ticks perception is updated.
+     */
+    public int getInterval() {
+        return _interval;
+    }
+
+    /**
+     * Set the interval in ticks perception is updated.
+     *
+     * @param ticks  The interval in ticks.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcPerception setInterval(int ticks) {
+        PreCon.greaterThanZero(ticks, "ticks");
+
+        _interval = ticks;
+        return this;
+    }
+
+    /**
+     * Get the time in nanoseconds spent updating perception during the last update.
+     */
+    public long getLastDuration() {
+        return _lastDuration;
+    }
+
+    @Override
+    public void run() {
+
+        _tick++;
+
+        if (!_isEnabled) {
+
+            // clear results once after perception is disabled
+            if (_perceived.length != 0) {
+                clear(_perceived, false);
+                _perceived = new Npc[0];
+            }
+            return;
+        }
+
+        if (_tick % _interval != 0)
+            return;
+
+        long start = System.nanoTime();
+
+        Npc[] spawned = CitizensProvider.getSpawnedNpcs().snapshot();
+
+        // clear results of NPC's that despawned since the last update
+        if (_perceived != spawned)
+            clear(_perceived, true);
+
+        _perceived = spawned;
+
+        if (spawned.length == 0)
+            return;
+
+        hashPlayers();
+
+        for (Npc npc : spawned) {
+
+            if (!npc.isSpawned()) {
+                npc.getState().beginPerception(_tick);
+                continue;
+            }
+
+            try {
+                perceive(npc);
+            }
+            catch (Throwable e) {
+                Msg.severe("Exception while updating perception for Npc '{0}'.", npc.getLookupName());
+                e.printStackTrace();
+            }
+        }
+
+        // release player references
+        Arrays.fill(_players, 0, _playerCount, null);
+        Arrays.fill(_playerWorlds, 0, _playerCount, null);
+        _playerCount = 0;
+
+        _lastDuration = System.nanoTime() - start;
+    }
+
+    /*
+     * Clear the perception results of NPC's.
+     */
+    private void clear(Npc[] npcs, boolean isDespawnedOnly) {
+
+        for (Npc npc : npcs) {
+
+            if (isDespawnedOnly && npc.isSpawned())
+                continue;
+
+            npc.getState().beginPerception(_tick);
+        }
+    }
+
+    /*
+     * Compute perception facts for an NPC and store them in its state.
+     */
+    private void perceive(Npc npc) {
+
+        NpcState state = npc.getState();
+        List<Player> inView = state.beginPerception(_tick);
+
+        Entity entity = npc.getEntity();
+        if (entity == null)
+            return;
+
+        Location location = entity.getLocation(_npcLocation);
+        World world = location.getWorld();
+        double x = location.getX();
+        double y = location.getY();
+        double z = location.getZ();
+
+        // facing direction, yaw 0 faces +Z
+        double yaw = Math.toRadians(location.getYaw());
+        double faceX = -Math.sin(yaw);
+        double faceZ = Math.cos(yaw);
+
+        Player nearestPlayer = null;
+        double nearestPlayerSq = Double.MAX_VALUE;
+
+        int cellX = cell(x);
+        int cellZ = cell(z);
+        int visitedCount = 0;
+
+        for (int cx = cellX - 1; cx <= cellX + 1; cx++) {
+            for (int cz = cellZ - 1; cz <= cellZ + 1; cz++) {
+
+                int bucket = bucket(cx, cz);
+
+                // different cells can share a bucket
+                if (contains(_visited, visitedCount, bucket))
+                    continue;
+
+                _visited[visitedCount++] = bucket;
+
+                for (int i = _heads[bucket]; i != -1; i = _next[i]) {
+
+                    if (_playerWorlds[i] != world)
+                        continue;
+
+                    double dx = _playerCoords[i * 3] - x;
+                    double dy = _playerCoords[i * 3 + 1] - y;
+                    double dz = _playerCoords[i * 3 + 2] - z;
+                    double distanceSq = dx * dx + dy * dy + dz * dz;
+
+                    if (distanceSq > _rangeSq)
+                        continue;
+
+                    if (distanceSq < nearestPlayerSq) {
+                        nearestPlayerSq = distanceSq;
+                        nearestPlayer = _players[i];
+                    }
+
+                    double horizontal = Math.sqrt(dx * dx + dz * dz);
+                    if (horizontal == 0 || (dx * faceX + dz * faceZ) >= _fovCos * horizontal)
+                        inView.add(_players[i]);
+                }
+            }
+        }
+
+        Npc nearestHostile = null;
+        double nearestHostileSq = Double.MAX_VALUE;
+
+        _nearby.clear();
+        CitizensProvider.getInstance().getSpatialIndex().getInRadius(location, _range, null, _nearby);
+
+        for (int i = 0; i < _nearby.size(); i++) {
+
+            Npc other = _nearby.get(i);
+            if (other == npc || !other.isSpawned() || !other.getNavigator().isHostile())
+                continue;
+
+            Entity otherEntity = other.getEntity();
+            if (otherEntity == null)
+                continue;
+
+            Location otherLocation = otherEntity.getLocation(_playerLocation);
+            double distanceSq = otherLocation.distanceSquared(location);
+
+            if (distanceSq < nearestHostileSq) {
+                nearestHostileSq = distanceSq;
+                nearestHostile = other;
+            }
+        }
+
+        _nearby.clear();
+
+        state.setPerception(nearestPlayer, nearestPlayerSq, nearestHostile, nearestHostileSq);
+    }
+
+    /*
+     * Bucket online players by cell.
+     */
+    private void hashPlayers() {
+
+        Arrays.fill(_heads, -1);
+        _playerCount = 0;
+
+        List<World> worlds = Bukkit.getWorlds();
+
+        for (int w = 0; w < worlds.size(); w++) {
+
+            List<Player> players = worlds.get(w).getPlayers();
+
+            for (int p = 0; p < players.size(); p++) {
+
+                Player player = players.get(p);
+                int index = _playerCount++;
+                Location location = player.getLocation(_playerLocation);
+
+                ensureCapacity(_playerCount);
+
+                _players[index] = player;
+                _playerWorlds[index] = location.getWorld();
+                _playerCoords[index * 3] = location.getX();
+                _playerCoords[index * 3 + 1] = location.getY();
+                _playerCoords[index * 3 + 2] = location.getZ();
+
+                int bucket = bucket(cell(location.getX()), cell(location.getZ()));
+                _next[index] = _heads[bucket];
+                _heads[bucket] = index;
+            }
+        }
+    }
+
+    private void ensureCapacity(int size) {
+
+        if (_players.length >= size)
+            return;
+
+        int capacity = Math.max(size, _players.length * 2);
+
+        _players = Arrays.copyOf(_players, capacity);
+        _playerWorlds = Arrays.copyOf(_playerWorlds, capacity);
+        _playerCoords = Arrays.copyOf(_playerCoords, capacity * 3);
+        _next = Arrays.copyOf(_next, capacity);
+    }
+
+    private int cell(double coord) {
+        return (int) Math.floor(coord / _range);
+    }
+
+    private static int bucket(int cx, int cz) {
+        int h = cx * 73856093 ^ cz * 19349663;
+        return (h ^ (h >>> 16)) & BUCKET_MASK;
+    }
+
+    private static boolean contains(int[] array, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == value)
+                return true;
+        }
+        return false;
+    }
+}
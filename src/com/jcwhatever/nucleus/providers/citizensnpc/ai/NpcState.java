@@ -0,0 +1,365 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.ai;
+
+import com.jcwhatever.nucleus.providers.citizensnpc.Npc;
+import com.jcwhatever.nucleus.providers.citizensnpc.navigator.NpcNavigator;
+import com.jcwhatever.nucleus.providers.npc.ai.INpcState;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.coords.LocationUtils;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Damageable;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Snapshot of an {@link Npc}'s state captured once at the start of each AI pass.
+ *
+ * <p>Goals and actions can read the snapshot instead of querying the live entity
+ * and navigator repeatedly during the same pass. Values are not updated by changes
+ * made during the pass, i.e. setting a navigator target.</p>
+ *
+ * <p>Perception facts are updated separately by {@link NpcPerception} at its own
+ * interval, if enabled.</p>
+ *
+ * <p>The snapshot instance is reused by the NPC and must not be retained.</p>
+ */
+public class NpcState {
+
+    /**
+     * Get the state snapshot of the NPC an {@link INpcState} is for.
+     *
+     * @param state  The state given to a goal or action.
+     *
+     * @return  The snapshot or null if the state is not a provider NPC.
+     */
+    @Nullable
+    public static NpcState of(INpcState state) {
+        PreCon.notNull(state);
+
+        if (state instanceof Npc)
+            return ((Npc) state).getState();
+
+        return null;
+    }
+
+    private final Npc _npc;
+    private final Location _location = new Location(null, 0, 0, 0);
+    private final Location _targetLocation = new Location(null, 0, 0, 0);
+
+    private long _pass = -1;
+    private boolean _isSpawned;
+    private boolean _hasLocation;
+    private double _health;
+    private double _maxHealth;
+    private Entity _targetEntity;
+    private boolean _hasTargetLocation;
+    private boolean _isNavigating;
+    private boolean _isHostile;
+
+    // perception
+    private final List<Player> _playersInView = new ArrayList<>(5);
+    private final List<Player> _playersInViewView = Collections.unmodifiableList(_playersInView);
+    private long _perceptionTick = -1;
+    private Player _nearestPlayer;
+    private double _nearestPlayerDistanceSq = Double.MAX_VALUE;
+    private Npc _nearestHostile;
+    private double _nearestHostileDistanceSq = Double.MAX_VALUE;
+
+    /**
+     * Constructor.
+     *
+     * @param npc  The NPC the state is for.
+     */
+    public NpcState(Npc npc) {
+        PreCon.notNull(npc);
+
+        _npc = npc;
+    }
+
+    /**
+     * Get the NPC the state is for.
+     */
+    public Npc getNpc() {
+        return _npc;
+    }
+
+    /**
+     * Get the AI pass the state was captured for.
+     *
+     * @see NpcGoals#getPass
+     */
+    public long getPass() {
+        return _pass;
+    }
+
+    /**
+     * Determine if the NPC was spawned.
+     */
+    public boolean isSpawned() {
+        return _isSpawned;
+    }
+
+    /**
+     * Get the world the NPC was in. Null if not spawned.
+     */
+    @Nullable
+    public World getWorld() {
+        return _hasLocation ? _location.getWorld() : null;
+    }
+
+    /**
+     * Get the NPC X coordinate.
+     */
+    public double getX() {
+        return _location.getX();
+    }
+
+    /**
+     * Get the NPC Y coordinate.
+     */
+    public double getY() {
+        return _location.getY();
+    }
+
+    /**
+     * Get the NPC Z coordinate.
+     */
+    public double getZ() {
+        return _location.getZ();
+    }
+
+    /**
+     * Copy the NPC location into an output location.
+     *
+     * @param output  The output location.
+     *
+     * @return  The output location or null if the NPC was not spawned.
+     */
+    @Nullable
+    public Location getLocation(Location output) {
+        PreCon.notNull(output);
+
+        if (!_hasLocation)
+            return null;
+
+        return LocationUtils.copy(_location, output);
+    }
+
+    /**
+     * Get the NPC entity health. 0 if not spawned or the entity has no health.
+     */
+    public double getHealth() {
+        return _health;
+    }
+
+    /**
+     * Get the NPC entity max health. 0 if not spawned or the entity has no health.
+     */
+    public double getMaxHealth() {
+        return _maxHealth;
+    }
+
+    /**
+     * Get the navigator target entity.
+     */
+    @Nullable
+    public Entity getTargetEntity() {
+        return _targetEntity;
+    }
+
+    /**
+     * Determine if the navigator had a target location or entity.
+     */
+    public boolean hasTarget() {
+        return _hasTargetLocation;
+    }
+
+    /**
+     * Copy the navigator target location into an output location.
+     *
+     * @param output  The output location.
+     *
+     * @return  The output location or null if there was no target.
+     */
+    @Nullable
+    public Location getTargetLocation(Location output) {
+        PreCon.notNull(output);
+
+        if (!_hasTargetLocation)
+            return null;
+
+        return LocationUtils.copy(_targetLocation, output);
+    }
+
+    /**
+     * Determine if the navigator was running.
+     */
+    public boolean isNavigating() {
+        return _isNavigating;
+    }
+
+    /**
+     * Determine if the navigator was targeting an entity aggressively.
+     */
+    public boolean isHostile() {
+        return _isHostile;
+    }
+
+    /**
+     * Get the perception tick the perception facts were last updated on.
+     * -1 if perception has not been updated.
+     */
+    public long getPerceptionTick() {
+        return _perceptionTick;
+    }
+
+    /**
+     * Get the nearest player within the perception range.
+     */
+    @Nullable
+    public Player getNearestPlayer() {
+        return _nearestPlayer;
+    }
+
+    /**
+     * Get the squared distance to the nearest player. {@link Double#MAX_VALUE}
+     * if there is no player within the perception range.
+     */
+    public double getNearestPlayerDistanceSq() {
+        return _nearestPlayerDistanceSq;
+    }
+
+    /**
+     * Get the nearest hostile NPC within the perception range.
+     */
+    @Nullable
+    public Npc getNearestHostile() {
+        return _nearestHostile;
+    }
+
+    /**
+     * Get the squared distance to the nearest hostile NPC. {@link Double#MAX_VALUE}
+     * if there is no hostile NPC within the perception range.
+     */
+    public double getNearestHostileDistanceSq() {
+        return _nearestHostileDistanceSq;
+    }
+
+    /**
+     * Get the players within the perception range and the NPC's field of view.
+     *
+     * <p>The list is reused and updated in place.</p>
+     */
+    public List<Player> getPlayersInView() {
+        return _playersInViewView;
+    }
+
+    /*
+     * Begin a perception update. Returns the players in view list to fill.
+     */
+    List<Player> beginPerception(long tick) {
+        _perceptionTick = tick;
+        _nearestPlayer = null;
+        _nearestPlayerDistanceSq = Double.MAX_VALUE;
+        _nearestHostile = null;
+        _nearestHostileDistanceSq = Double.MAX_VALUE;
+        _playersInView.clear();
+        return _playersInView;
+    }
+
+    /*
+     * Set the results of a perception update.
+     */
+    void setPerception(@Nullable Player nearestPlayer, double nearestPlayerDistanceSq,
+                       @Nullable Npc nearestHostile, double nearestHostileDistanceSq) {
+        _nearestPlayer = nearestPlayer;
+        _nearestPlayerDistanceSq = nearestPlayerDistanceSq;
+        _nearestHostile = nearestHostile;
+        _nearestHostileDistanceSq = nearestHostileDistanceSq;
+    }
+
+    /**
+     * Capture the current state. Invoked at the start of each AI pass.
+     *
+     * @param pass  The AI pass.
+     */
+    void capture(long pass) {
+
+        _pass = pass;
+        _isSpawned = _npc.isSpawned();
+        _hasLocation = false;
+        _health = 0;
+        _maxHealth = 0;
+        _targetEntity = null;
+        _hasTargetLocation = false;
+        _isNavigating = false;
+        _isHostile = false;
+
+        if (!_isSpawned)
+            return;
+
+        Entity entity = _npc.getEntity();
+        if (entity != null) {
+            _hasLocation = entity.getLocation(_location) != null;
+
+            if (entity instanceof Damageable) {
+                Damageable damageable = (Damageable)entity;
+                _health = damageable.getHealth();
+                _maxHealth = damageable.getMaxHealth();
+            }
+        }
+
+        NpcNavigator navigator = _npc.getNavigator();
+
+        _isNavigating = navigator.isRunning();
+
+        if (_isNavigating) {
+            _isHostile = navigator.isHostile();
+            _targetEntity = navigator.getTargetEntity();
+            _hasTargetLocation = navigator.getTargetLocation(_targetLocation) != null;
+        }
+    }
+
+    /*
+     * Clear references. Invoked when the NPC goals are disposed.
+     */
+    void clear() {
+        _pass = -1;
+        _isSpawned = false;
+        _hasLocation = false;
+        _targetEntity = null;
+        _hasTargetLocation = false;
+        _location.setWorld(null);
+        _targetLocation.setWorld(null);
+        beginPerception(-1);
+    }
+}
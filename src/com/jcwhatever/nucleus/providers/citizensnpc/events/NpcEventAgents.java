@@ -0,0 +1,122 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.events;
+
+import com.jcwhatever.nucleus.providers.citizensnpc.CitizensProvider;
+import com.jcwhatever.nucleus.utils.PreCon;
+import com.jcwhatever.nucleus.utils.observer.update.IUpdateSubscriber;
+import com.jcwhatever.nucleus.utils.observer.update.UpdateAgent;
+
+/**
+ * Collection of update agents indexed by {@link NpcEventType}.
+ *
+ * <p>Replaces string keyed agent lookup with array indexing.</p>
+ *
+ * <p>Event types with subscribers are reported to the providers
+ * {@link NpcEventObservers}.</p>
+ */
+public class NpcEventAgents {
+
+    private final UpdateAgent[] _agents = new UpdateAgent[NpcEventType.size()];
+    private int _subscriberMask;
+
+    /**
+     * Add a subscriber to an event type.
+     *
+     * @param type        The event type.
+     * @param subscriber  The subscriber to add.
+     */
+    @SuppressWarnings("unchecked")
+    public void addSubscriber(NpcEventType type, IUpdateSubscriber<?> subscriber) {
+        PreCon.notNull(type);
+        PreCon.notNull(subscriber);
+
+        UpdateAgent agent = _agents[type.ordinal()];
+        if (agent == null) {
+            agent = new UpdateAgent();
+            _agents[type.ordinal()] = agent;
+            _subscriberMask |= type.getMask();
+
+            CitizensProvider.getInstance().getEventObservers().addSubscribed(type);
+        }
+
+        agent.addSubscriber(subscriber);
+    }
+
+    /**
+     * Determine if an event type has had subscribers added.
+     *
+     * @param type  The event type.
+     */
+    public boolean hasSubscribers(NpcEventType type) {
+        return (_subscriberMask & type.getMask()) != 0;
+    }
+
+    /**
+     * Get a bit mask of the event types that have had subscribers added.
+     *
+     * @see NpcEventType#getMask
+     */
+    public int getSubscriberMask() {
+        return _subscriberMask;
+    }
+
+    /**
+     * Update the subscribers of an event type.
+     *
+     * @param type   The event type.
+     * @param event  The event to pass to subscribers.
+     */
+    @SuppressWarnings("unchecked")
+    public void update(NpcEventType type, Object event) {
+
+        UpdateAgent agent = _agents[type.ordinal()];
+        if (agent == null)
+            return;
+
+        agent.update(event);
+    }
+
+    /**
+     * Dispose all agents and remove them.
+     */
+    public void disposeAgents() {
+
+        NpcEventObservers observers = CitizensProvider.getInstance().getEventObservers();
+        NpcEventType[] types = NpcEventType.values();
+
+        for (int i = 0; i < _agents.length; i++) {
+
+            if (_agents[i] == null)
+                continue;
+
+            _agents[i].dispose();
+            _agents[i] = null;
+
+            observers.removeSubscribed(types[i]);
+        }
+        _subscriberMask = 0;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.events;
+
+import com.jcwhatever.nucleus.providers.citizensnpc.Npc;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Global presence of NPC event observers.
+ *
+ * <p>Used to skip creating and calling NPC wrapper events when nothing would
+ * observe them. An event is observed if its Bukkit handler list has registered
+ * listeners or if the NPC, one of its active behaviours or its registry has
+ * subscribers for the event type.</p>
+ *
+ * <p>The global subscriber mask is tracked from the subscribers added to all
+ * {@link NpcEventAgents} so that event types without any subscribers are
+ * rejected without checking the NPC.</p>
+ */
+public class NpcEventObservers {
+
+    private final int[] _subscriberCounts = new int[NpcEventType.size()];
+    private int _subscriberMask;
+    private boolean _isSkipEnabled = true;
+
+    /**
+     * Determine if unobserved wrapper events are skipped.
+     *
+     * <p>True by default.</p>
+     */
+    public boolean isSkipEnabled() {
+        return _isSkipEnabled;
+    }
+
+    /**
+     * Set whether unobserved wrapper events are skipped.
+     *
+     * @param isEnabled  True to skip unobserved events, false to always call them.
+     */
+    public void setSkipEnabled(boolean isEnabled) {
+        _isSkipEnabled = isEnabled;
+    }
+
+    /**
+     * Get the bit mask of event types that have subscribers in any
+     * NPC, behaviour or registry.
+     *
+     * @see NpcEventType#getMask
+     */
+    public int getSubscriberMask() {
+        return _subscriberMask;
+    }
+
+    /**
+     * Determine if an NPC event is observed.
+     *
+     * @param npc       The NPC the event is for.
+     * @param type      The event type.
+     * @param handlers  The Bukkit handler list of the wrapper event.
+     */
+    public boolean isObserved(Npc npc, NpcEventType type, HandlerList handlers) {
+        return !_isSkipEnabled ||
+                handlers.getRegisteredListeners().length != 0 ||
+                ((_subscriberMask & type.getMask()) != 0 && npc.isObserved(type));
+    }
+
+    /*
+     * Invoked by NpcEventAgents when the first subscriber of an event type is added.
+     */
+    void addSubscribed(NpcEventType type) {
+
+        if (_subscriberCounts[type.ordinal()]++ == 0)
+            _subscriberMask |= type.getMask();
+    }
+
+    /*
+     * Invoked by NpcEventAgents when the subscribers of an event type are disposed.
+     */
+    void removeSubscribed(NpcEventType type) {
+
+        if (_subscriberCounts[type.ordinal()] == 0)
+            return;
+
+        if (--_subscriberCounts[type.ordinal()] == 0)
+            _subscriberMask &= ~type.getMask();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.events;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Internal NPC event types used to index event subscribers.
+ */
+public enum NpcEventType {
+
+    SPAWN               ("onNpcSpawn"),
+    DESPAWN             ("onNpcDespawn"),
+    CLICK               ("onNpcClick"),
+    RIGHT_CLICK         ("onNpcRightClick"),
+    LEFT_CLICK          ("onNpcLeftClick"),
+    ENTITY_TARGET       ("onNpcEntityTarget"),
+    DAMAGE              ("onNpcDamage"),
+    DAMAGE_BY_BLOCK     ("onNpcDamageByBlock"),
+    DAMAGE_BY_ENTITY    ("onNpcDamageByEntity"),
+    DEATH               ("onNpcDeath"),
+    NAV_START           ("onNavStart"),
+    NAV_PAUSE           ("onNavPause"),
+    NAV_CANCEL          ("onNavCancel"),
+    NAV_COMPLETE        ("onNavComplete"),
+    NAV_TIMEOUT         ("onNavTimeout"),
+    PUSH                ("onNpcPush");
+
+    private static final Map<String, NpcEventType> _agentNames = new HashMap<>(20);
+
+    static {
+        for (NpcEventType type : values()) {
+            _agentNames.put(type.getAgentName(), type);
+        }
+    }
+
+    /**
+     * Get the number of event types.
+     */
+    public static int size() {
+        return _agentNames.size();
+    }
+
+    /**
+     * Get an event type by its agent name.
+     *
+     * @param agentName  The agent name. i.e. "onNpcDamage"
+     *
+     * @return  The event type or null if not found.
+     */
+    @Nullable
+    public static NpcEventType fromAgentName(String agentName) {
+        return _agentNames.get(agentName);
+    }
+
+    private final String _agentName;
+    private final int _mask;
+
+    NpcEventType(String agentName) {
+        _agentName = agentName;
+        _mask = 1 << ordinal();
+    }
+
+    /**
+     * Get the name used by scripts to refer to the event. i.e. "onNpcDamage"
+     */
+    public String getAgentName() {
+        return _agentName;
+    }
+
+    /**
+     * Get the bit flag that represents the event type in a subscriber mask.
+     */
+    public int getMask() {
+        return _mask;
+    }
+}
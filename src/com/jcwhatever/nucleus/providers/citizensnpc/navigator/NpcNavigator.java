@@ -27,6 +27,8 @@ package com.jcwhatever.nucleus.providers.citizensnpc.navigator;
 import com.jcwhatever.nucleus.mixins.IDisposable;
 import com.jcwhatever.nucleus.providers.citizensnpc.Npc;
 import com.jcwhatever.nucleus.providers.citizensnpc.Registry;
+import com.jcwhatever.nucleus.providers.citizensnpc.events.NpcEventAgents;
+import com.jcwhatever.nucleus.providers.citizensnpc.events.NpcEventType;
 import com.jcwhatever.nucleus.providers.npc.INpc;
 import com.jcwhatever.nucleus.providers.npc.navigator.INpcNav;
 import com.jcwhatever.nucleus.providers.npc.navigator.INpcNavRunner;
@@ -34,7 +36,6 @@ import com.jcwhatever.nucleus.utils.PreCon;
 import com.jcwhatever.nucleus.utils.coords.LocationUtils;
 import com.jcwhatever.nucleus.utils.observer.script.IScriptUpdateSubscriber;
 import com.jcwhatever.nucleus.utils.observer.script.ScriptUpdateSubscriber;
-import com.jcwhatever.nucleus.utils.observer.update.NamedUpdateAgents;
 
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -56,7 +57,7 @@ public class NpcNavigator implements INpcNav, IDisposable {
     private final Npc _npc;
     private final Navigator _navigator;
     private final NpcNavigatorSettings _settings;
-    private final NamedUpdateAgents _agents = new NamedUpdateAgents();
+    private final NpcEventAgents _agents = new NpcEventAgents();
     private final Location _targetCache = new Location(null, 0, 0, 0);
 
     private NpcNavigatorSettings _currentSettings;
@@ -302,7 +303,7 @@ public class NpcNavigator implements INpcNav, IDisposable {
     public NpcNavigator onNavStart(IScriptUpdateSubscriber<INpc> subscriber) {
         PreCon.notNull(subscriber);
 
-        _agents.getAgent("onNavStart").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.NAV_START, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -311,7 +312,7 @@ public class NpcNavigator implements INpcNav, IDisposable {
     public NpcNavigator onNavPause(IScriptUpdateSubscriber<INpc> subscriber) {
         PreCon.notNull(subscriber);
 
-        _agents.getAgent("onNavPause").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.NAV_PAUSE, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -320,7 +321,7 @@ public class NpcNavigator implements INpcNav, IDisposable {
     public NpcNavigator onNavCancel(IScriptUpdateSubscriber<INpc> subscriber) {
         PreCon.notNull(subscriber);
 
-        _agents.getAgent("onNavCancel").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.NAV_CANCEL, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -329,7 +330,7 @@ public class NpcNavigator implements INpcNav, IDisposable {
     public NpcNavigator onNavComplete(IScriptUpdateSubscriber<INpc> subscriber) {
         PreCon.notNull(subscriber);
 
-        _agents.getAgent("onNavComplete").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.NAV_COMPLETE, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
@@ -338,38 +339,38 @@ public class NpcNavigator implements INpcNav, IDisposable {
     public NpcNavigator onNavTimeout(IScriptUpdateSubscriber<INpc> subscriber) {
         PreCon.notNull(subscriber);
 
-        _agents.getAgent("onNavTimeout").addSubscriber(new ScriptUpdateSubscriber<>(subscriber));
+        _agents.addSubscriber(NpcEventType.NAV_TIMEOUT, new ScriptUpdateSubscriber<>(subscriber));
 
         return this;
     }
 
     public void onStart() {
-        _npc.updateAgents("onNavStart", _npc);
-        _agents.update("onNavStart", _npc);
+        _npc.updateAgents(NpcEventType.NAV_START, _npc);
+        _agents.update(NpcEventType.NAV_START, _npc);
         _registry.onNavStart(_npc);
     }
 
     public void onPause() {
-        _npc.updateAgents("onNavPause", _npc);
-        _agents.update("onNavPause", _npc);
+        _npc.updateAgents(NpcEventType.NAV_PAUSE, _npc);
+        _agents.update(NpcEventType.NAV_PAUSE, _npc);
         _registry.onNavPause(_npc);
     }
 
     public void onCancel() {
-        _npc.updateAgents("onNavCancel", _npc);
-        _agents.update("onNavCancel", _npc);
+        _npc.updateAgents(NpcEventType.NAV_CANCEL, _npc);
+        _agents.update(NpcEventType.NAV_CANCEL, _npc);
         _registry.onNavCancel(_npc);
     }
 
     public void onComplete() {
-        _npc.updateAgents("onNavComplete", _npc);
-        _agents.update("onNavComplete", _npc);
+        _npc.updateAgents(NpcEventType.NAV_COMPLETE, _npc);
+        _agents.update(NpcEventType.NAV_COMPLETE, _npc);
         _registry.onNavComplete(_npc);
     }
 
     public void onTimeout() {
-        _npc.updateAgents("onNavTimeout", _npc);
-        _agents.update("onNavTimeout", _npc);
+        _npc.updateAgents(NpcEventType.NAV_TIMEOUT, _npc);
+        _agents.update(NpcEventType.NAV_TIMEOUT, _npc);
         _registry.onNavTimeout(_npc);
     }
 
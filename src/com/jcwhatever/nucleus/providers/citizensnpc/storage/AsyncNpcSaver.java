@@ -0,0 +1,248 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.storage;
+
+import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
+import com.jcwhatever.nucleus.providers.citizensnpc.CitizensProvider;
+import com.jcwhatever.nucleus.providers.citizensnpc.Msg;
+import com.jcwhatever.nucleus.providers.citizensnpc.Npc;
+import com.jcwhatever.nucleus.providers.citizensnpc.NpcDescriptor;
+import com.jcwhatever.nucleus.providers.citizensnpc.Registry;
+import com.jcwhatever.nucleus.utils.PreCon;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Saves a registry's NPC's to a file without blocking the main thread.
+ *
+ * <p>An immutable {@link NpcSnapshot} of each NPC that changed since the previous
+ * save is captured on the main thread. Unchanged NPC's reuse their previous snapshot.
+ * Serialization, optional compression and an atomic replace of the file are run on
+ * the provider's IO executor so the live data nodes used by scripts are never read
+ * or written from another thread.</p>
+ */
+public class AsyncNpcSaver {
+
+    private final Registry _registry;
+    private final AtomicInteger _queueDepth = new AtomicInteger();
+
+    // keyed by Npc or NpcDescriptor instance
+    private Map<Object, NpcSnapshot> _snapshots = new IdentityHashMap<>(0);
+    private NpcFileFormat _format = NpcFileFormat.YAML;
+    private boolean _isCompressed;
+
+    private volatile long _lastLatency;
+    private volatile long _lastSnapshotTime;
+    private volatile int _lastCaptureCount;
+
+    /**
+     * Constructor.
+     *
+     * @param registry  The registry to save.
+     */
+    public AsyncNpcSaver(Registry registry) {
+        PreCon.notNull(registry);
+
+        _registry = registry;
+    }
+
+    /**
+     * Get the format of saved files.
+     */
+    public NpcFileFormat getFormat() {
+        return _format;
+    }
+
+    /**
+     * Set the format of saved files.
+     *
+     * @param format  The file format.
+     */
+    public void setFormat(NpcFileFormat format) {
+        PreCon.notNull(format);
+
+        _format = format;
+    }
+
+    /**
+     * Determine if saved files are GZIP compressed.
+     */
+    public boolean isCompressed() {
+        return _isCompressed;
+    }
+
+    /**
+     * Set whether saved files are GZIP compressed.
+     *
+     * @param isCompressed  True to compress.
+     */
+    public void setCompressed(boolean isCompressed) {
+        _isCompressed = isCompressed;
+    }
+
+    /**
+     * Get the number of saves that are queued or in progress.
+     */
+    public int getQueueDepth() {
+        return _queueDepth.get();
+    }
+
+    /**
+     * Get the time in nanoseconds between the last completed save being
+     * requested and the file being replaced.
+     */
+    public long getLastLatency() {
+        return _lastLatency;
+    }
+
+    /**
+     * Get the time in nanoseconds the main thread spent capturing
+     * snapshots during the last save request.
+     */
+    public long getLastSnapshotTime() {
+        return _lastSnapshotTime;
+    }
+
+    /**
+     * Get the number of NPC snapshots captured during the last save request.
+     * NPC's that did not change reuse their previous snapshot.
+     */
+    public int getLastCaptureCount() {
+        return _lastCaptureCount;
+    }
+
+    /**
+     * Save the registry's NPC's to a file.
+     *
+     * <p>Must be invoked on the main thread.</p>
+     *
+     * @param file        The file to save to.
+     * @param onComplete  Optional callback run on the main thread after the file is
+     *                    successfully saved.
+     *
+     * @return  A future that completes when the file is saved. If the save fails,
+     * the future completes with the exception and the callback is not run.
+     */
+    public Future<?> save(final File file, @Nullable final Runnable onComplete) {
+        PreCon.notNull(file);
+
+        final long start = System.nanoTime();
+        final Collection<NpcSnapshot> snapshots = capture();
+        final NpcFileFormat format = _format;
+        final boolean isCompressed = _isCompressed;
+
+        _lastSnapshotTime = System.nanoTime() - start;
+        _queueDepth.incrementAndGet();
+
+        return CitizensProvider.getInstance().getIoExecutor().submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+
+                try {
+                    NpcFiles.write(file, snapshots, format, isCompressed);
+
+                    _lastLatency = System.nanoTime() - start;
+
+                    Msg.debug("Saved {0} Npc's from registry '{1}' in {2}ms. Queued saves: {3}",
+                            snapshots.size(), _registry.getName(),
+                            _lastLatency / 1000000, _queueDepth.get() - 1);
+                }
+                catch (Exception e) {
+                    Msg.severe("Failed to save Npc's from registry '{0}' to file: {1}",
+                            _registry.getName(), file.getAbsolutePath());
+                    e.printStackTrace();
+                    throw e;
+                }
+                finally {
+                    _queueDepth.decrementAndGet();
+                }
+
+                if (onComplete != null)
+                    Scheduler.runTaskLater(Nucleus.getPlugin(), onComplete);
+
+                return null;
+            }
+        });
+    }
+
+    /*
+     * Capture snapshots of the registry's NPC's on the main thread, reusing
+     * snapshots of NPC's that have not changed.
+     */
+    private Collection<NpcSnapshot> capture() {
+
+        Collection<Npc> npcs = _registry.getNpcs();
+        int size = npcs.size() + _registry.getDescriptors().size();
+        Map<Object, NpcSnapshot> snapshots = new IdentityHashMap<>(size);
+        List<NpcSnapshot> result = new ArrayList<>(size);
+        int captured = 0;
+
+        for (Npc npc : npcs) {
+
+            // a pooled Npc is reused by other NPC's, but its mod count
+            // is incremented every time it is initialized
+            NpcSnapshot snapshot = _snapshots.get(npc);
+
+            if (snapshot == null || snapshot.getModCount() != npc.getModCount()) {
+                snapshot = NpcSnapshot.capture(npc);
+                captured++;
+            }
+
+            snapshots.put(npc, snapshot);
+            result.add(snapshot);
+        }
+
+        // NPC's that are not materialized are saved from the data they were loaded from
+        for (NpcDescriptor descriptor : _registry.getDescriptors()) {
+
+            NpcSnapshot snapshot = _snapshots.get(descriptor);
+
+            if (snapshot == null) {
+                snapshot = new NpcSnapshot(descriptor.getLookupName(), 0,
+                        descriptor.getDataNode().getAllValues());
+                captured++;
+            }
+
+            snapshots.put(descriptor, snapshot);
+            result.add(snapshot);
+        }
+
+        // snapshots of removed NPC's are dropped
+        _snapshots = snapshots;
+        _lastCaptureCount = captured;
+
+        return result;
+    }
+}
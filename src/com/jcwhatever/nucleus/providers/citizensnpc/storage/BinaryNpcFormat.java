@@ -0,0 +1,307 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.storage;
+
+import com.google.common.base.Charsets;
+import com.jcwhatever.nucleus.utils.PreCon;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Versioned binary format for {@link NpcSnapshot}'s.
+ *
+ * <p>Layout: a 4 byte magic number, a format version, a flags byte, and then the
+ * NPC count followed by each NPC's lookup name and key/value pairs. If the
+ * compressed flag is set, everything after the flags byte is GZIP compressed.</p>
+ *
+ * <p>Values are written with a type tag. Bukkit configuration serializable
+ * objects (i.e. item stacks) are written as their serialized map and alias.</p>
+ */
+public class BinaryNpcFormat {
+
+    /**
+     * The magic number at the start of every binary NPC file. "CNPC"
+     */
+    public static final int MAGIC = 0x434E5043;
+
+    /**
+     * The current format version.
+     */
+    public static final int VERSION = 1;
+
+    private static final int FLAG_COMPRESSED = 1;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_INT = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_FLOAT = 5;
+    private static final byte TAG_BOOLEAN = 6;
+    private static final byte TAG_LIST = 7;
+    private static final byte TAG_MAP = 8;
+    private static final byte TAG_SERIALIZABLE = 9;
+
+    private BinaryNpcFormat() {}
+
+    /**
+     * Determine if the start of a file is a binary NPC file header.
+     *
+     * @param header  The first 4 or more bytes of the file.
+     */
+    public static boolean isBinary(byte[] header) {
+        PreCon.notNull(header);
+
+        return header.length >= 4 &&
+                ((header[0] & 0xFF) << 24 | (header[1] & 0xFF) << 16 |
+                        (header[2] & 0xFF) << 8 | (header[3] & 0xFF)) == MAGIC;
+    }
+
+    /**
+     * Write snapshots to an output stream.
+     *
+     * @param snapshots     The NPC snapshots.
+     * @param output        The output stream. Not closed.
+     * @param isCompressed  True to GZIP compress the NPC data.
+     *
+     * @throws IOException
+     */
+    public static void write(Collection<NpcSnapshot> snapshots, OutputStream output,
+                             boolean isCompressed) throws IOException {
+        PreCon.notNull(snapshots);
+        PreCon.notNull(output);
+
+        DataOutputStream header = new DataOutputStream(output);
+        header.writeInt(MAGIC);
+        header.writeShort(VERSION);
+        header.writeByte(isCompressed ? FLAG_COMPRESSED : 0);
+        header.flush();
+
+        GZIPOutputStream gzip = isCompressed ? new GZIPOutputStream(output) : null;
+        DataOutputStream stream = new DataOutputStream(gzip != null ? gzip : output);
+
+        stream.writeInt(snapshots.size());
+
+        for (NpcSnapshot snapshot : snapshots) {
+
+            writeString(stream, snapshot.getLookupName());
+            stream.writeInt(snapshot.getValues().size());
+
+            for (Entry<String, Object> entry : snapshot.getValues().entrySet()) {
+                writeString(stream, entry.getKey());
+                writeValue(stream, entry.getValue());
+            }
+        }
+
+        stream.flush();
+
+        if (gzip != null)
+            gzip.finish();
+    }
+
+    /**
+     * Read snapshots from an input stream.
+     *
+     * @param input  The input stream. Not closed.
+     *
+     * @throws IOException if the data is not a supported binary NPC format.
+     */
+    public static List<NpcSnapshot> read(InputStream input) throws IOException {
+        PreCon.notNull(input);
+
+        DataInputStream header = new DataInputStream(input);
+
+        if (header.readInt() != MAGIC)
+            throw new IOException("Not a binary Npc file.");
+
+        int version = header.readShort();
+        if (version < 1 || version > VERSION)
+            throw new IOException("Unsupported binary Npc file version: " + version);
+
+        int flags = header.readByte();
+
+        DataInputStream stream = (flags & FLAG_COMPRESSED) != 0
+                ? new DataInputStream(new GZIPInputStream(input))
+                : header;
+
+        int count = stream.readInt();
+        List<NpcSnapshot> result = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+
+            String lookupName = readString(stream);
+            int size = stream.readInt();
+
+            Map<String, Object> values = new LinkedHashMap<>(size);
+
+            for (int j = 0; j < size; j++) {
+                String key = readString(stream);
+                values.put(key, readValue(stream));
+            }
+
+            result.add(new NpcSnapshot(lookupName, 0, values));
+        }
+
+        return result;
+    }
+
+    private static void writeValue(DataOutputStream stream, Object value) throws IOException {
+
+        if (value == null) {
+            stream.writeByte(TAG_NULL);
+        }
+        else if (value instanceof String) {
+            stream.writeByte(TAG_STRING);
+            writeString(stream, (String) value);
+        }
+        else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            stream.writeByte(TAG_INT);
+            stream.writeInt(((Number) value).intValue());
+        }
+        else if (value instanceof Long) {
+            stream.writeByte(TAG_LONG);
+            stream.writeLong((Long) value);
+        }
+        else if (value instanceof Double) {
+            stream.writeByte(TAG_DOUBLE);
+            stream.writeDouble((Double) value);
+        }
+        else if (value instanceof Float) {
+            stream.writeByte(TAG_FLOAT);
+            stream.writeFloat((Float) value);
+        }
+        else if (value instanceof Boolean) {
+            stream.writeByte(TAG_BOOLEAN);
+            stream.writeBoolean((Boolean) value);
+        }
+        else if (value instanceof List) {
+            List<?> list = (List<?>)value;
+            stream.writeByte(TAG_LIST);
+            stream.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(stream, element);
+            }
+        }
+        else if (value instanceof Map) {
+            stream.writeByte(TAG_MAP);
+            writeMap(stream, (Map<?, ?>) value);
+        }
+        else if (value instanceof ConfigurationSerializable) {
+            ConfigurationSerializable serializable = (ConfigurationSerializable)value;
+            stream.writeByte(TAG_SERIALIZABLE);
+            writeString(stream, ConfigurationSerialization.getAlias(serializable.getClass()));
+            writeMap(stream, serializable.serialize());
+        }
+        else {
+            throw new IOException("Unsupported value type: " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(DataInputStream stream) throws IOException {
+
+        byte tag = stream.readByte();
+
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return readString(stream);
+            case TAG_INT:
+                return stream.readInt();
+            case TAG_LONG:
+                return stream.readLong();
+            case TAG_DOUBLE:
+                return stream.readDouble();
+            case TAG_FLOAT:
+                return stream.readFloat();
+            case TAG_BOOLEAN:
+                return stream.readBoolean();
+            case TAG_LIST:
+                int size = stream.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(stream));
+                }
+                return list;
+            case TAG_MAP:
+                return readMap(stream);
+            case TAG_SERIALIZABLE:
+                String alias = readString(stream);
+                Map<String, Object> map = readMap(stream);
+                map.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, alias);
+                return ConfigurationSerialization.deserializeObject(map);
+            default:
+                throw new IOException("Invalid value tag: " + tag);
+        }
+    }
+
+    private static void writeMap(DataOutputStream stream, Map<?, ?> map) throws IOException {
+        stream.writeInt(map.size());
+        for (Entry<?, ?> entry : map.entrySet()) {
+            writeString(stream, String.valueOf(entry.getKey()));
+            writeValue(stream, entry.getValue());
+        }
+    }
+
+    private static Map<String, Object> readMap(DataInputStream stream) throws IOException {
+        int size = stream.readInt();
+        Map<String, Object> map = new LinkedHashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            String key = readString(stream);
+            map.put(key, readValue(stream));
+        }
+        return map;
+    }
+
+    private static void writeString(DataOutputStream stream, String string) throws IOException {
+        byte[] bytes = string.getBytes(Charsets.UTF_8);
+        stream.writeInt(bytes.length);
+        stream.write(bytes);
+    }
+
+    private static String readString(DataInputStream stream) throws IOException {
+        int length = stream.readInt();
+        if (length < 0)
+            throw new IOException("Invalid string length: " + length);
+
+        byte[] bytes = new byte[length];
+        stream.readFully(bytes);
+        return new String(bytes, Charsets.UTF_8);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.storage;
+
+import com.jcwhatever.nucleus.utils.PreCon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads and writes NPC files in any {@link NpcFileFormat}.
+ *
+ * <p>Does not use the Bukkit or Nucleus API's that require the main thread
+ * and can be used from the provider's IO executor.</p>
+ */
+public class NpcFiles {
+
+    private NpcFiles() {}
+
+    /**
+     * Read NPC snapshots from a file. The format and compression
+     * are detected from the file header.
+     *
+     * @param file  The file to read.
+     *
+     * @throws IOException
+     */
+    public static List<NpcSnapshot> read(File file) throws IOException {
+        PreCon.notNull(file);
+
+        InputStream input = new BufferedInputStream(new FileInputStream(file));
+        try {
+            input.mark(4);
+
+            byte[] header = new byte[4];
+            int read = 0;
+            while (read < header.length) {
+                int count = input.read(header, read, header.length - read);
+                if (count == -1)
+                    break;
+                read += count;
+            }
+
+            input.reset();
+
+            if (BinaryNpcFormat.isBinary(header))
+                return BinaryNpcFormat.read(input);
+
+            // GZIP compressed YAML
+            if (read >= 2 && (header[0] & 0xFF) == 0x1F && (header[1] & 0xFF) == 0x8B)
+                return YamlNpcFormat.read(new GZIPInputStream(input));
+
+            return YamlNpcFormat.read(input);
+        }
+        finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Write NPC snapshots to a file.
+     *
+     * <p>The snapshots are written to a temporary file which then
+     * atomically replaces the target file if supported by the file system.</p>
+     *
+     * @param file          The file to write.
+     * @param snapshots     The NPC snapshots.
+     * @param format        The file format.
+     * @param isCompressed  True to GZIP compress the data.
+     *
+     * @throws IOException
+     */
+    public static void write(File file, Collection<NpcSnapshot> snapshots,
+                             NpcFileFormat format, boolean isCompressed) throws IOException {
+        PreCon.notNull(file);
+        PreCon.notNull(snapshots);
+        PreCon.notNull(format);
+
+        File folder = file.getAbsoluteFile().getParentFile();
+        if (folder != null && !folder.exists() && !folder.mkdirs())
+            throw new IOException("Failed to create folder: " + folder.getAbsolutePath());
+
+        File temp = new File(folder, file.getName() + ".tmp");
+
+        OutputStream output = new BufferedOutputStream(new FileOutputStream(temp));
+        try {
+            switch (format) {
+                case YAML:
+                    if (isCompressed) {
+                        GZIPOutputStream gzip = new GZIPOutputStream(output);
+                        YamlNpcFormat.write(snapshots, gzip);
+                        gzip.finish();
+                    }
+                    else {
+                        YamlNpcFormat.write(snapshots, output);
+                    }
+                    break;
+                case BINARY:
+                    BinaryNpcFormat.write(snapshots, output, isCompressed);
+                    break;
+                default:
+                    throw new AssertionError();
+            }
+        }
+        finally {
+            output.close();
+        }
+
+        replace(temp, file);
+    }
+
+    /**
+     * Convert an NPC file to another format.
+     *
+     * <p>Used to convert between YAML and binary files.</p>
+     *
+     * @param source        The file to convert. The format is detected.
+     * @param target        The file to write.
+     * @param format        The format to convert to.
+     * @param isCompressed  True to GZIP compress the converted data.
+     *
+     * @return  The number of NPC's converted.
+     *
+     * @throws IOException
+     */
+    public static int convert(File source, File target,
+                              NpcFileFormat format, boolean isCompressed) throws IOException {
+        PreCon.notNull(source);
+        PreCon.notNull(target);
+        PreCon.notNull(format);
+
+        List<NpcSnapshot> snapshots = read(source);
+        write(target, snapshots, format, isCompressed);
+
+        return snapshots.size();
+    }
+
+    /*
+     * Replace a file with another, atomically if supported by the file system.
+     */
+    private static void replace(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,576 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.storage;
+
+import com.jcwhatever.nucleus.Nucleus;
+import com.jcwhatever.nucleus.managed.scheduler.IScheduledTask;
+import com.jcwhatever.nucleus.managed.scheduler.Scheduler;
+import com.jcwhatever.nucleus.providers.citizensnpc.CitizensProvider;
+import com.jcwhatever.nucleus.providers.citizensnpc.Msg;
+import com.jcwhatever.nucleus.providers.citizensnpc.Registry;
+import com.jcwhatever.nucleus.providers.npc.INpc;
+import com.jcwhatever.nucleus.storage.IDataNode;
+import com.jcwhatever.nucleus.utils.PreCon;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.EntityType;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads NPC's into a registry in two phases without freezing the main thread.
+ *
+ * <p>NPC data is read, parsed and validated on the provider's IO executor. The NPC's
+ * are then materialized on the main thread a few at a time each tick until the
+ * per-tick time budget is used.</p>
+ *
+ * <p>The task is also a {@link Future} whose result is the final {@link LoadState}.
+ * {@link #get} blocks until loading is finished and so must not be invoked
+ * on the main thread.</p>
+ */
+public class NpcLoadTask implements Future<NpcLoadTask.LoadState> {
+
+    /**
+     * The default main thread time budget per tick in nanoseconds.
+     */
+    public static final long DEFAULT_TICK_BUDGET = 5000000;
+
+    /**
+     * Load task states.
+     */
+    public enum LoadState {
+        PARSING,
+        LOADING,
+        COMPLETE,
+        FAILED,
+        CANCELLED
+    }
+
+    private final Registry _registry;
+    private final long _tickBudget;
+    private final List<Runnable> _callbacks = new ArrayList<>(3);
+    private final CountDownLatch _doneLatch = new CountDownLatch(1);
+
+    private volatile LoadState _state = LoadState.PARSING;
+    private volatile int _total;
+    private volatile int _loaded;
+    private volatile int _failed;
+    private volatile Throwable _error;
+
+    private List<IDataNode> _nodes;
+    private boolean _isSavedData;
+    private IScheduledTask _sliceTask;
+    private int _index;
+    private long _startTime;
+    private long _duration;
+
+    /**
+     * Constructor.
+     *
+     * @param registry    The registry to load NPC's into.
+     * @param tickBudget  The maximum time in nanoseconds to spend loading NPC's per tick.
+     */
+    public NpcLoadTask(Registry registry, long tickBudget) {
+        PreCon.notNull(registry);
+        PreCon.greaterThanZero(tickBudget);
+
+        _registry = registry;
+        _tickBudget = tickBudget;
+    }
+
+    /**
+     * Start loading NPC's from a YAML or binary NPC file.
+     *
+     * <p>Must be invoked on the main thread. The file format is detected
+     * from the file header.</p>
+     *
+     * @param file  The file to load.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcLoadTask start(final File file) {
+        PreCon.notNull(file);
+
+        return start(new Callable<List<NpcSnapshot>>() {
+            @Override
+            public List<NpcSnapshot> call() throws Exception {
+                return NpcFiles.read(file);
+            }
+        });
+    }
+
+    /**
+     * Start loading NPC's from the child nodes of a data node.
+     *
+     * <p>Must be invoked on the main thread. The data node is not parsed
+     * asynchronously since data nodes are not thread safe.</p>
+     *
+     * @param dataNode  The data node to load.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcLoadTask start(IDataNode dataNode) {
+        PreCon.notNull(dataNode);
+
+        markStarted();
+
+        List<IDataNode> nodes = new ArrayList<>(dataNode.getSubNodeNames().size());
+        for (IDataNode npcNode : dataNode) {
+            nodes.add(npcNode);
+        }
+
+        _isSavedData = true;
+        beginLoading(nodes);
+
+        return this;
+    }
+
+    /**
+     * Get the current state of the task.
+     */
+    public LoadState getState() {
+        return _state;
+    }
+
+    /**
+     * Determine if the task is finished, regardless of success.
+     */
+    @Override
+    public boolean isDone() {
+        LoadState state = _state;
+        return state == LoadState.COMPLETE ||
+                state == LoadState.FAILED ||
+                state == LoadState.CANCELLED;
+    }
+
+    /**
+     * Get the number of valid NPC's to load. Is 0 until parsing is complete.
+     */
+    public int getTotal() {
+        return _total;
+    }
+
+    /**
+     * Get the number of NPC's loaded so far.
+     */
+    public int getLoaded() {
+        return _loaded;
+    }
+
+    /**
+     * Get the number of NPC's that failed validation or could not be loaded.
+     */
+    public int getFailed() {
+        return _failed;
+    }
+
+    /**
+     * Get the loading progress from 0.0 to 1.0.
+     */
+    public float getProgress() {
+
+        if (isDone())
+            return 1.0f;
+
+        int total = _total;
+        return total == 0 ? 0.0f : (float) _loaded / total;
+    }
+
+    /**
+     * Get the total time in nanoseconds from start to completion.
+     */
+    public long getDuration() {
+        return _duration;
+    }
+
+    /**
+     * Add a callback to run on the main thread when the task is finished.
+     *
+     * <p>If the task is already finished, the callback is run immediately.</p>
+     *
+     * @param callback  The callback.
+     *
+     * @return  Self for chaining.
+     */
+    public NpcLoadTask onComplete(Runnable callback) {
+        PreCon.notNull(callback);
+
+        if (isDone()) {
+            callback.run();
+        }
+        else {
+            _callbacks.add(callback);
+        }
+
+        return this;
+    }
+
+    /**
+     * Cancel loading. NPC's already loaded remain in the registry.
+     *
+     * <p>Must be invoked on the main thread.</p>
+     */
+    public void cancel() {
+
+        if (isDone())
+            return;
+
+        finish(LoadState.CANCELLED);
+    }
+
+    /**
+     * Cancel loading. NPC's already loaded remain in the registry.
+     *
+     * <p>If not invoked on the main thread, the task is cancelled on
+     * the next tick.</p>
+     *
+     * @param mayInterruptIfRunning  Ignored, loading is never interrupted mid-slice.
+     *
+     * @return  True if the task was not already finished.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+
+        if (isDone())
+            return false;
+
+        if (Bukkit.isPrimaryThread()) {
+            cancel();
+        }
+        else {
+            Scheduler.runTaskLater(Nucleus.getPlugin(), new Runnable() {
+                @Override
+                public void run() {
+                    cancel();
+                }
+            });
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return _state == LoadState.CANCELLED;
+    }
+
+    /**
+     * Wait for loading to finish.
+     *
+     * <p>Must not be invoked on the main thread.</p>
+     *
+     * @return  {@link LoadState#COMPLETE}.
+     *
+     * @throws CancellationException if the task was cancelled.
+     * @throws ExecutionException if the NPC data could not be read.
+     * @throws InterruptedException
+     */
+    @Override
+    public LoadState get() throws InterruptedException, ExecutionException {
+        checkNotMainThread();
+
+        _doneLatch.await();
+        return getResult();
+    }
+
+    /**
+     * Wait for loading to finish.
+     *
+     * <p>Must not be invoked on the main thread.</p>
+     *
+     * @param timeout  The maximum time to wait.
+     * @param unit     The time unit of the timeout.
+     *
+     * @return  {@link LoadState#COMPLETE}.
+     *
+     * @throws CancellationException if the task was cancelled.
+     * @throws ExecutionException if the NPC data could not be read.
+     * @throws TimeoutException if loading did not finish before the timeout.
+     * @throws InterruptedException
+     */
+    @Override
+    public LoadState get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        PreCon.notNull(unit);
+
+        checkNotMainThread();
+
+        if (!_doneLatch.await(timeout, unit))
+            throw new TimeoutException();
+
+        return getResult();
+    }
+
+    private NpcLoadTask start(final Callable<List<NpcSnapshot>> reader) {
+
+        markStarted();
+
+        CitizensProvider.getInstance().getIoExecutor().submit(new Runnable() {
+            @Override
+            public void run() {
+
+                final List<IDataNode> nodes;
+                try {
+                    nodes = parse(reader.call());
+                }
+                catch (final Throwable e) {
+                    Scheduler.runTaskLater(Nucleus.getPlugin(), new Runnable() {
+                        @Override
+                        public void run() {
+                            Msg.severe("Failed to read Npc's for registry '{0}'.", _registry.getName());
+                            e.printStackTrace();
+
+                            if (!isDone()) {
+                                _error = e;
+                                finish(LoadState.FAILED);
+                            }
+                        }
+                    });
+                    return;
+                }
+
+                Scheduler.runTaskLater(Nucleus.getPlugin(), new Runnable() {
+                    @Override
+                    public void run() {
+
+                        // cancelled while parsing
+                        if (isDone())
+                            return;
+
+                        beginLoading(nodes);
+                    }
+                });
+            }
+        });
+
+        return this;
+    }
+
+    /*
+     * Start materializing NPC's from data nodes. Invoked on the main thread.
+     */
+    private void beginLoading(List<IDataNode> nodes) {
+
+        _nodes = nodes;
+        _total = nodes.size();
+        _state = LoadState.LOADING;
+
+        if (loadSlice())
+            return;
+
+        // cancelled when the task is finished
+        _sliceTask = Scheduler.runTaskRepeat(Nucleus.getPlugin(), 1, 1, new Runnable() {
+            @Override
+            public void run() {
+                loadSlice();
+            }
+        });
+    }
+
+    /*
+     * Validate snapshots and convert them to data nodes. Invoked on the IO executor.
+     */
+    private List<IDataNode> parse(List<NpcSnapshot> snapshots) {
+
+        List<IDataNode> result = new ArrayList<>(snapshots.size());
+        Set<String> lookupNames = new HashSet<>(snapshots.size());
+        int failed = 0;
+
+        for (NpcSnapshot snapshot : snapshots) {
+
+            if (!isValid(snapshot.getValues()) || !lookupNames.add(snapshot.getLookupName())) {
+                Msg.debug("Skipped invalid or duplicate Npc data: {0}", snapshot.getLookupName());
+                failed++;
+                continue;
+            }
+
+            result.add(snapshot.toDataNode(_registry.getPlugin()));
+        }
+
+        _failed = failed;
+
+        return result;
+    }
+
+    /*
+     * Load NPC's until the tick budget is used. Invoked on the main thread.
+     * Returns true when there is nothing left to load.
+     */
+    private boolean loadSlice() {
+
+        if (_state != LoadState.LOADING)
+            return true;
+
+        if (_registry.isDisposed()) {
+            finish(LoadState.CANCELLED);
+            return true;
+        }
+
+        long start = System.nanoTime();
+        int loaded = _loaded;
+        int failed = _failed;
+
+        // always load at least 1 NPC per tick
+        do {
+
+            if (_index >= _nodes.size())
+                break;
+
+            IDataNode dataNode = _nodes.get(_index);
+            _nodes.set(_index, null);
+            _index++;
+
+            try {
+                INpc npc = _isSavedData
+                        ? _registry.loadSaved(dataNode)
+                        : _registry.load(dataNode);
+
+                if (npc != null) {
+                    loaded++;
+                }
+                else {
+                    failed++;
+                }
+            }
+            catch (Throwable e) {
+                Msg.severe("Error while loading Npc '{0}' in registry '{1}'.",
+                        dataNode.getString("lookup"), _registry.getName());
+                e.printStackTrace();
+                failed++;
+            }
+
+        } while (System.nanoTime() - start < _tickBudget);
+
+        _loaded = loaded;
+        _failed = failed;
+
+        if (_index >= _nodes.size()) {
+            finish(LoadState.COMPLETE);
+            return true;
+        }
+
+        return false;
+    }
+
+    /*
+     * Finish the task and run callbacks. Invoked on the main thread.
+     */
+    private void finish(LoadState state) {
+
+        if (_sliceTask != null) {
+            _sliceTask.cancel();
+            _sliceTask = null;
+        }
+
+        _state = state;
+        _nodes = null;
+        _duration = System.nanoTime() - _startTime;
+
+        Msg.debug("Npc loading for registry '{0}' {1}. Loaded: {2}, Failed: {3}, Time: {4}ms",
+                _registry.getName(), state.name().toLowerCase(), _loaded, _failed, _duration / 1000000);
+
+        _doneLatch.countDown();
+
+        List<Runnable> callbacks = new ArrayList<>(_callbacks);
+        _callbacks.clear();
+
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            }
+            catch (Throwable e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /*
+     * Get the result of a finished task.
+     */
+    private LoadState getResult() throws ExecutionException {
+
+        LoadState state = _state;
+
+        if (state == LoadState.CANCELLED)
+            throw new CancellationException();
+
+        if (state == LoadState.FAILED)
+            throw new ExecutionException(_error);
+
+        return state;
+    }
+
+    /*
+     * Record the start time. Throws if the task was already started.
+     */
+    private void markStarted() {
+
+        if (_startTime != 0)
+            throw new IllegalStateException("NpcLoadTask has already been started.");
+
+        _startTime = System.nanoTime();
+    }
+
+    private void checkNotMainThread() {
+        if (Bukkit.isPrimaryThread())
+            throw new IllegalStateException("Cannot wait for NpcLoadTask on the main thread.");
+    }
+
+    /*
+     * Determine if snapshot values contain the required NPC values.
+     */
+    private static boolean isValid(Map<String, Object> values) {
+
+        Object lookup = values.get("lookup");
+        Object name = values.get("name");
+        Object uuid = values.get("uuid");
+        Object type = values.get("type");
+
+        if (lookup == null || name == null || uuid == null || type == null)
+            return false;
+
+        try {
+            UUID.fromString(uuid.toString());
+            EntityType.valueOf(type.toString());
+        }
+        catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        return true;
+    }
+}
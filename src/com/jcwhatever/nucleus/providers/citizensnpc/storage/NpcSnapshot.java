@@ -0,0 +1,183 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.storage;
+
+import com.jcwhatever.nucleus.providers.citizensnpc.Npc;
+import com.jcwhatever.nucleus.storage.IDataNode;
+import com.jcwhatever.nucleus.storage.MemoryDataNode;
+import com.jcwhatever.nucleus.utils.PreCon;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of an {@link Npc}'s saved data.
+ *
+ * <p>Values are stored by their key path relative to the NPC's data node. A snapshot
+ * is captured on the main thread and is safe to serialize on another thread.</p>
+ */
+public final class NpcSnapshot {
+
+    /**
+     * Capture a snapshot of an {@link Npc}.
+     *
+     * <p>Must be invoked on the main thread.</p>
+     *
+     * @param npc  The NPC.
+     */
+    public static NpcSnapshot capture(Npc npc) {
+        PreCon.notNull(npc);
+
+        MemoryDataNode dataNode = new MemoryDataNode(npc.getRegistry().getPlugin());
+        npc.writeData(dataNode);
+
+        return new NpcSnapshot(npc.getLookupName(), npc.getModCount(), dataNode.getAllValues());
+    }
+
+    private final String _lookupName;
+    private final long _modCount;
+    private final Map<String, Object> _values;
+
+    /**
+     * Constructor.
+     *
+     * @param lookupName  The NPC lookup name.
+     * @param modCount    The NPC modification count at the time of the snapshot.
+     * @param values      The NPC data values by key path.
+     */
+    public NpcSnapshot(String lookupName, long modCount, Map<String, Object> values) {
+        PreCon.notNullOrEmpty(lookupName);
+        PreCon.notNull(values);
+
+        _lookupName = lookupName;
+        _modCount = modCount;
+
+        Map<String, Object> copy = new LinkedHashMap<>(values.size());
+        for (Entry<String, Object> entry : values.entrySet()) {
+
+            if (entry.getValue() == null)
+                continue;
+
+            copy.put(entry.getKey(), normalize(entry.getValue()));
+        }
+
+        _values = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Get the NPC lookup name.
+     */
+    public String getLookupName() {
+        return _lookupName;
+    }
+
+    /**
+     * Get the NPC modification count at the time the snapshot was captured.
+     */
+    public long getModCount() {
+        return _modCount;
+    }
+
+    /**
+     * Get the NPC data values by key path.
+     */
+    public Map<String, Object> getValues() {
+        return _values;
+    }
+
+    /**
+     * Create a new data node containing the snapshot values.
+     *
+     * @param plugin  The owning plugin of the data node.
+     */
+    public IDataNode toDataNode(Plugin plugin) {
+        PreCon.notNull(plugin);
+
+        MemoryDataNode dataNode = new MemoryDataNode(plugin);
+
+        for (Entry<String, Object> entry : _values.entrySet()) {
+            dataNode.set(entry.getKey(), entry.getValue());
+        }
+
+        return dataNode;
+    }
+
+    // convert values into types that can be serialized by every storage format.
+    private static Object normalize(Object value) {
+
+        if (value instanceof UUID)
+            return value.toString();
+
+        if (value instanceof Enum)
+            return ((Enum<?>) value).name();
+
+        // item stacks may be shared with a live entity
+        if (value instanceof ItemStack)
+            return ((ItemStack) value).clone();
+
+        if (value instanceof List) {
+            List<?> list = (List<?>)value;
+            List<Object> copy = new ArrayList<>(list.size());
+
+            for (Object element : list) {
+                copy.add(element != null ? normalize(element) : null);
+            }
+
+            return Collections.unmodifiableList(copy);
+        }
+
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>)value;
+            Map<String, Object> copy = new LinkedHashMap<>(map.size());
+
+            for (Entry<?, ?> entry : map.entrySet()) {
+                copy.put(String.valueOf(entry.getKey()),
+                        entry.getValue() != null ? normalize(entry.getValue()) : null);
+            }
+
+            return Collections.unmodifiableMap(copy);
+        }
+
+        if (value instanceof Object[]) {
+            Object[] array = (Object[])value;
+            List<Object> copy = new ArrayList<>(array.length);
+
+            for (Object element : array) {
+                copy.add(element != null ? normalize(element) : null);
+            }
+
+            return Collections.unmodifiableList(copy);
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.storage;
+
+import com.google.common.base.Charsets;
+import com.jcwhatever.nucleus.utils.PreCon;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Reads and writes {@link NpcSnapshot}'s in the same YAML layout produced by
+ * saving a registry to a YAML data node.
+ *
+ * <p>Does not use the Bukkit or Nucleus API's that require the main thread.</p>
+ */
+public class YamlNpcFormat {
+
+    // Path separator used while writing and reading so lookup names that
+    // contain the default separator are written as a single key.
+    private static final char SEPARATOR = '\u0000';
+
+    private YamlNpcFormat() {}
+
+    /**
+     * Write snapshots to an output stream.
+     *
+     * @param snapshots  The NPC snapshots.
+     * @param output     The output stream. Not closed.
+     *
+     * @throws IOException
+     */
+    public static void write(Collection<NpcSnapshot> snapshots, OutputStream output) throws IOException {
+        PreCon.notNull(snapshots);
+        PreCon.notNull(output);
+
+        YamlConfiguration config = new YamlConfiguration();
+        config.options().pathSeparator(SEPARATOR);
+
+        for (NpcSnapshot snapshot : snapshots) {
+
+            ConfigurationSection section = config.createSection(snapshot.getLookupName());
+
+            for (Entry<String, Object> entry : snapshot.getValues().entrySet()) {
+                section.set(entry.getKey().replace('.', SEPARATOR), entry.getValue());
+            }
+        }
+
+        output.write(config.saveToString().getBytes(Charsets.UTF_8));
+    }
+
+    /**
+     * Read snapshots from an input stream.
+     *
+     * @param input  The input stream. Not closed.
+     *
+     * @throws IOException
+     */
+    public static List<NpcSnapshot> read(InputStream input) throws IOException {
+        PreCon.notNull(input);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+        byte[] bytes = new byte[4096];
+        int read;
+
+        while ((read = input.read(bytes)) != -1) {
+            buffer.write(bytes, 0, read);
+        }
+
+        YamlConfiguration config = new YamlConfiguration();
+        config.options().pathSeparator(SEPARATOR);
+
+        try {
+            config.loadFromString(new String(buffer.toByteArray(), Charsets.UTF_8));
+        }
+        catch (InvalidConfigurationException e) {
+            throw new IOException("Invalid Npc YAML data.", e);
+        }
+
+        Set<String> lookupNames = config.getKeys(false);
+        List<NpcSnapshot> result = new ArrayList<>(lookupNames.size());
+
+        for (String lookupName : lookupNames) {
+
+            ConfigurationSection section = config.getConfigurationSection(lookupName);
+            if (section == null)
+                continue;
+
+            Map<String, Object> values = section.getValues(true);
+            Map<String, Object> leafValues = new LinkedHashMap<>(values.size());
+
+            for (Entry<String, Object> entry : values.entrySet()) {
+                if (!(entry.getValue() instanceof ConfigurationSection))
+                    leafValues.put(entry.getKey().replace(SEPARATOR, '.'), entry.getValue());
+            }
+
+            result.add(new NpcSnapshot(lookupName, 0, leafValues));
+        }
+
+        return result;
+    }
+}
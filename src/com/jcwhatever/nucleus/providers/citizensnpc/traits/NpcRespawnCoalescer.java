@@ -0,0 +1,114 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.traits;
+
+import com.jcwhatever.nucleus.providers.citizensnpc.Msg;
+import com.jcwhatever.nucleus.utils.PreCon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coalesces respawns requested to apply NPC appearance changes.
+ *
+ * <p>Changing an NPC's skin or tab list visibility requires the NPC to be respawned.
+ * Respawns requested during a tick are performed once per NPC at the end of the tick,
+ * so several appearance changes cause a single respawn.</p>
+ */
+public class NpcRespawnCoalescer implements Runnable {
+
+    private List<NpcTraits> _pending = new ArrayList<>(10);
+    private List<NpcTraits> _processing = new ArrayList<>(10);
+
+    private long _requestCount;
+    private long _respawnCount;
+
+    /**
+     * Get the number of NPC's with a pending respawn.
+     */
+    public int getPendingCount() {
+        return _pending.size();
+    }
+
+    /**
+     * Get the total number of respawns requested.
+     */
+    public long getRequestCount() {
+        return _requestCount;
+    }
+
+    /**
+     * Get the total number of respawns performed.
+     */
+    public long getRespawnCount() {
+        return _respawnCount;
+    }
+
+    /**
+     * Remove all pending respawns without performing them.
+     */
+    public void clear() {
+        _pending.clear();
+    }
+
+    @Override
+    public void run() {
+
+        if (_pending.isEmpty())
+            return;
+
+        // respawns requested while processing are performed next tick
+        List<NpcTraits> processing = _pending;
+        _pending = _processing;
+        _processing = processing;
+
+        for (int i = 0; i < processing.size(); i++) {
+            NpcTraits traits = processing.get(i);
+
+            try {
+                if (traits.flushRespawn())
+                    _respawnCount++;
+            }
+            catch (Throwable e) {
+                Msg.severe("Exception while respawning Npc '{0}'.", traits.getNpc().getLookupName());
+                e.printStackTrace();
+            }
+        }
+
+        processing.clear();
+    }
+
+    /*
+     * Invoked by NpcTraits when a respawn is requested.
+     */
+    void request(NpcTraits traits, boolean isNewPending) {
+        PreCon.notNull(traits);
+
+        _requestCount++;
+
+        if (isNewPending)
+            _pending.add(traits);
+    }
+}
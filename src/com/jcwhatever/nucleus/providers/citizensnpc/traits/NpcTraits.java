@@ -28,6 +28,7 @@ import com.google.common.base.Charsets;
 import com.jcwhatever.nucleus.Nucleus;
 import com.jcwhatever.nucleus.mixins.IDisposable;
 import com.jcwhatever.nucleus.providers.citizensnpc.CitizensProvider;
+import com.jcwhatever.nucleus.providers.citizensnpc.INpcChangeTracker;
 import com.jcwhatever.nucleus.providers.citizensnpc.Msg;
 import com.jcwhatever.nucleus.providers.citizensnpc.Npc;
 import com.jcwhatever.nucleus.providers.citizensnpc.traits.citizens.EquipmentTrait;
@@ -64,7 +65,7 @@ import java.util.Set;
 /**
  * Implementation of {@link com.jcwhatever.nucleus.providers.npc.traits.INpcTraits}.
  */
-public class NpcTraits implements INpcTraits, IDisposable {
+public class NpcTraits implements INpcTraits, INpcChangeTracker, IDisposable {
 
     private final Npc _npc;
     private final NPC _handle;
@@ -73,6 +74,7 @@ public class NpcTraits implements INpcTraits, IDisposable {
     private EntityType _entityType;
     private IKit _kit;
     private boolean _isShownInTabList;
+    private boolean _isRespawnPending;
     private boolean _isDisposed;
 
     /**
@@ -107,6 +109,9 @@ public class NpcTraits implements INpcTraits, IDisposable {
     /**
      * Save traits to a data node.
      *
+     * <p>The data node is not saved to disk. The node is a child of the
+     * NPC's data node and is saved with it.</p>
+     *
      * @param dataNode  The data node to save to.
      */
     public void save(IDataNode dataNode) {
@@ -138,7 +143,11 @@ public class NpcTraits implements INpcTraits, IDisposable {
         }
 
         dataNode.set("names", traitNames);
-        dataNode.save();
+    }
+
+    @Override
+    public void markDirty() {
+        _npc.markDirty();
     }
 
     /**
@@ -266,6 +275,7 @@ public class NpcTraits implements INpcTraits, IDisposable {
 
         _handle.setBukkitEntityType(event.getNewType());
         _entityType = type;
+        markDirty();
 
         return this;
     }
@@ -292,10 +302,8 @@ public class NpcTraits implements INpcTraits, IDisposable {
             _npc.getHandle().data().set(NPC.PLAYER_SKIN_UUID_METADATA, skinName);
         }
 
-        if (_npc.isSpawned()) {
-            _handle.despawn(DespawnReason.PENDING_RESPAWN);
-            _handle.spawn(_handle.getStoredLocation());
-        }
+        markDirty();
+        scheduleRespawn();
 
         return this;
     }
@@ -308,6 +316,7 @@ public class NpcTraits implements INpcTraits, IDisposable {
         checkDisposed();
 
         _handle.data().setPersistent(NPC.PLAYER_SKIN_USE_LATEST, false);
+        markDirty();
 
         final File file = getSkinFile(fileName);
         if (file == null) {
@@ -346,10 +355,7 @@ public class NpcTraits implements INpcTraits, IDisposable {
         _isShownInTabList = isShownInList;
         npc.data().set("removefromplayerlist", !isShownInList);
 
-        if (npc.isSpawned()) {
-            npc.despawn(DespawnReason.PENDING_RESPAWN);
-            npc.spawn(npc.getStoredLocation());
-        }
+        scheduleRespawn();
 
         return this;
     }
@@ -366,6 +372,7 @@ public class NpcTraits implements INpcTraits, IDisposable {
         checkDisposed();
 
         _kit = kit;
+        markDirty();
 
         applyEquipment();
 
@@ -433,6 +440,8 @@ public class NpcTraits implements INpcTraits, IDisposable {
         if (_adapter.has(name))
             return _adapter.get(name);
 
+        markDirty();
+
         return _adapter.add(name);
     }
 
@@ -443,6 +452,7 @@ public class NpcTraits implements INpcTraits, IDisposable {
         checkDisposed();
 
         _adapter.add(trait);
+        markDirty();
 
         return this;
     }
@@ -478,6 +488,8 @@ public class NpcTraits implements INpcTraits, IDisposable {
         if (trait == null)
             return false;
 
+        markDirty();
+
         // add to trait pool for reuse if possible
         if (trait.isReusable()) {
             getNpc().getRegistry().getTraitPool().pool(trait);
@@ -501,11 +513,56 @@ public class NpcTraits implements INpcTraits, IDisposable {
             return;
 
         _isDisposed = true;
+        _isRespawnPending = false;
 
         _kit = null;
         _adapter.dispose();
     }
 
+    /**
+     * Schedule a respawn to apply appearance changes.
+     *
+     * <p>The NPC is respawned at the end of the tick. Multiple requests in the
+     * same tick cause a single respawn. Does nothing if the NPC is not spawned.</p>
+     */
+    public void scheduleRespawn() {
+
+        if (_isDisposed || !_handle.isSpawned())
+            return;
+
+        boolean isNewPending = !_isRespawnPending;
+        _isRespawnPending = true;
+
+        CitizensProvider.getInstance().getRespawnCoalescer().request(this, isNewPending);
+    }
+
+    /**
+     * Determine if a respawn is scheduled.
+     */
+    public boolean isRespawnPending() {
+        return _isRespawnPending;
+    }
+
+    /**
+     * Immediately perform a scheduled respawn.
+     *
+     * @return  True if the NPC was respawned.
+     */
+    public boolean flushRespawn() {
+
+        if (!_isRespawnPending)
+            return false;
+
+        _isRespawnPending = false;
+
+        if (_isDisposed || !_handle.isSpawned())
+            return false;
+
+        _handle.despawn(DespawnReason.PENDING_RESPAWN);
+        _handle.spawn(_handle.getStoredLocation());
+        return true;
+    }
+
     private void checkDisposed() {
         if (_isDisposed)
             throw new IllegalStateException("Cannot use disposed NpcTraits.");
@@ -568,10 +625,7 @@ public class NpcTraits implements INpcTraits, IDisposable {
         _handle.data().setPersistent(NPC.PLAYER_SKIN_TEXTURE_PROPERTIES_SIGN_METADATA, components[3]);
         _handle.data().set(NPC.PLAYER_SKIN_UUID_METADATA, components[0]);
 
-        if (_handle.isSpawned()) {
-            _handle.despawn(DespawnReason.PENDING_RESPAWN);
-            _handle.spawn(_handle.getStoredLocation());
-        }
+        scheduleRespawn();
 
         return true;
     }
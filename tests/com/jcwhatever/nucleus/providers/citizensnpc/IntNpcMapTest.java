@@ -0,0 +1,188 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.jcwhatever.nucleus.providers.citizensnpc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class IntNpcMapTest {
+
+    @Test
+    public void testPutGet() {
+
+        IntNpcMap map = new IntNpcMap(4);
+        Object handle = new Object();
+        Npc npc = mock(Npc.class);
+
+        assertNull(map.put(1, handle, npc));
+        assertSame(npc, map.get(1, handle));
+        assertEquals(1, map.size());
+
+        // handles are matched by identity
+        assertNull(map.get(1, new Object()));
+        assertNull(map.get(2, handle));
+    }
+
+    @Test
+    public void testPutReplace() {
+
+        IntNpcMap map = new IntNpcMap(4);
+        Object handle = new Object();
+        Npc first = mock(Npc.class);
+        Npc second = mock(Npc.class);
+
+        map.put(1, handle, first);
+
+        assertSame(first, map.put(1, handle, second));
+        assertSame(second, map.get(1, handle));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testRemoveWithCollisions() {
+
+        IntNpcMap map = new IntNpcMap(16);
+
+        // the same id with different handles always shares a probe sequence
+        Object[] handles = new Object[6];
+        Npc[] npcs = new Npc[6];
+
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = new Object();
+            npcs[i] = mock(Npc.class);
+            map.put(7, handles[i], npcs[i]);
+        }
+
+        // remove from the start, middle and end of the probe sequence
+        assertSame(npcs[0], map.remove(7, handles[0]));
+        assertSame(npcs[3], map.remove(7, handles[3]));
+        assertSame(npcs[5], map.remove(7, handles[5]));
+        assertNull(map.remove(7, handles[5]));
+
+        assertEquals(3, map.size());
+        assertNull(map.get(7, handles[0]));
+        assertSame(npcs[1], map.get(7, handles[1]));
+        assertSame(npcs[2], map.get(7, handles[2]));
+        assertNull(map.get(7, handles[3]));
+        assertSame(npcs[4], map.get(7, handles[4]));
+
+        // reinsert removed entries
+        map.put(7, handles[0], npcs[0]);
+        map.put(7, handles[3], npcs[3]);
+        map.put(7, handles[5], npcs[5]);
+
+        assertEquals(6, map.size());
+
+        for (int i = 0; i < handles.length; i++) {
+            assertSame(npcs[i], map.get(7, handles[i]));
+        }
+    }
+
+    @Test
+    public void testRemoveAndReinsertRandom() {
+
+        IntNpcMap map = new IntNpcMap(2);
+        Map<Integer, Npc> expected = new HashMap<>();
+        Object handle = new Object();
+        Random random = new Random(0);
+
+        Npc[] npcs = new Npc[64];
+        for (int i = 0; i < npcs.length; i++) {
+            npcs[i] = mock(Npc.class);
+        }
+
+        for (int i = 0; i < 10000; i++) {
+
+            // small key range so probe sequences overlap and wrap
+            int key = random.nextInt(64) * 64;
+
+            if (random.nextBoolean()) {
+                Npc npc = npcs[random.nextInt(npcs.length)];
+                assertSame(expected.put(key, npc), map.put(key, handle, npc));
+            }
+            else {
+                assertSame(expected.remove(key), map.remove(key, handle));
+            }
+
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (int i = 0; i < 64; i++) {
+            assertSame(expected.get(i * 64), map.get(i * 64, handle));
+        }
+    }
+
+    @Test
+    public void testResize() {
+
+        IntNpcMap map = new IntNpcMap(1);
+        Object handle = new Object();
+        Npc[] npcs = new Npc[100];
+
+        for (int i = 0; i < npcs.length; i++) {
+            npcs[i] = mock(Npc.class);
+            map.put(i, handle, npcs[i]);
+        }
+
+        assertEquals(100, map.size());
+
+        for (int i = 0; i < npcs.length; i++) {
+            assertSame(npcs[i], map.get(i, handle));
+        }
+    }
+
+    @Test
+    public void testClearAndToArray() {
+
+        IntNpcMap map = new IntNpcMap(4);
+        Npc[] npcs = new Npc[] { mock(Npc.class), mock(Npc.class), mock(Npc.class) };
+
+        for (int i = 0; i < npcs.length; i++) {
+            map.put(i, new Object(), npcs[i]);
+        }
+
+        Set<Npc> result = new HashSet<>(Arrays.asList(map.toArray()));
+        assertEquals(new HashSet<>(Arrays.asList(npcs)), result);
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertArrayEquals(new Npc[0], map.toArray());
+    }
+}
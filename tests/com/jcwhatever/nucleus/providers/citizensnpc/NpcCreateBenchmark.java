@@ -0,0 +1,110 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc;
+
+import com.jcwhatever.nucleus.providers.npc.INpc;
+import com.jcwhatever.nucleus.utils.PreCon;
+import org.bukkit.entity.EntityType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares creating NPC's one at a time using {@link Registry#create} with
+ * creating them in a batch using {@link Registry#createAll}.
+ *
+ * <p>Results are written to the console. Must be run on the main thread.
+ * NPC's created by the benchmark are disposed after each iteration.</p>
+ */
+public class NpcCreateBenchmark {
+
+    private NpcCreateBenchmark() {}
+
+    /**
+     * Run the benchmark.
+     *
+     * @param registry    The registry to create NPC's in.
+     * @param count       The number of NPC's to create per iteration.
+     * @param type        The entity type of the created NPC's.
+     * @param iterations  The number of times each method is timed.
+     */
+    public static void run(Registry registry, int count, EntityType type, int iterations) {
+        PreCon.notNull(registry);
+        PreCon.greaterThanZero(count);
+        PreCon.notNull(type);
+        PreCon.greaterThanZero(iterations);
+
+        List<NpcSpec> specs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            specs.add(new NpcSpec(null, "Benchmark" + i, type));
+        }
+
+        NpcPool pool = registry.getNpcPool();
+        long singleTime = 0;
+        long batchTime = 0;
+        long startHits = pool.getHits();
+        long startMisses = pool.getMisses();
+
+        for (int i = 0; i < iterations; i++) {
+
+            List<INpc> created = new ArrayList<>(count);
+
+            // alternate order so neither method always gets the warmer pool
+            boolean isSingleFirst = i % 2 == 0;
+
+            for (int j = 0; j < 2; j++) {
+
+                long start = System.nanoTime();
+
+                if (isSingleFirst == (j == 0)) {
+                    for (NpcSpec spec : specs) {
+                        created.add(registry.create(spec.getLookupName(), spec.getNpcName(), spec.getType()));
+                    }
+                    singleTime += System.nanoTime() - start;
+                }
+                else {
+                    created.addAll(registry.createAll(specs));
+                    batchTime += System.nanoTime() - start;
+                }
+
+                dispose(created);
+                created.clear();
+            }
+        }
+
+        Msg.info("Npc create benchmark: {0} Npc's, {1} iterations. Single: {2}ms, Batch: {3}ms, " +
+                        "Pool hits: {4}, Pool misses: {5}",
+                count, iterations,
+                singleTime / iterations / 1000000, batchTime / iterations / 1000000,
+                pool.getHits() - startHits, pool.getMisses() - startMisses);
+    }
+
+    private static void dispose(List<INpc> npcs) {
+        for (INpc npc : npcs) {
+            if (npc != null)
+                npc.dispose();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.jcwhatever.nucleus.providers.citizensnpc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.bukkit.entity.Entity;
+import org.junit.Test;
+
+public class SpawnedNpcsTest {
+
+    @Test
+    public void testPutGet() {
+
+        SpawnedNpcs spawned = new SpawnedNpcs();
+        Entity entity = entity(10);
+        Npc npc = mock(Npc.class);
+
+        spawned.put(entity, npc);
+
+        assertSame(npc, spawned.get(entity));
+        assertTrue(spawned.mightContain(10));
+        assertEquals(1, spawned.size());
+
+        // entity that is not a spawned NPC
+        assertFalse(spawned.mightContain(11));
+        assertNull(spawned.get(entity(11)));
+    }
+
+    @Test
+    public void testFilterCollisions() {
+
+        SpawnedNpcs spawned = new SpawnedNpcs();
+
+        // ids that share a filter slot
+        Entity first = entity(5);
+        Entity second = entity(5 + 4096);
+
+        spawned.put(first, mock(Npc.class));
+        spawned.put(second, mock(Npc.class));
+
+        spawned.remove(first);
+
+        assertNull(spawned.get(first));
+        assertTrue(spawned.mightContain(5 + 4096));
+        assertTrue(spawned.get(second) != null);
+
+        spawned.remove(second);
+
+        assertFalse(spawned.mightContain(5));
+        assertFalse(spawned.mightContain(5 + 4096));
+    }
+
+    @Test
+    public void testPutTwiceCountsOnce() {
+
+        SpawnedNpcs spawned = new SpawnedNpcs();
+        Entity entity = entity(20);
+        Npc npc = mock(Npc.class);
+
+        spawned.put(entity, npc);
+        spawned.put(entity, npc);
+        spawned.remove(entity);
+
+        assertFalse(spawned.mightContain(20));
+        assertEquals(0, spawned.size());
+
+        // removing again does not corrupt the filter
+        spawned.remove(entity);
+        spawned.put(entity, npc);
+
+        assertTrue(spawned.mightContain(20));
+        assertSame(npc, spawned.get(entity));
+    }
+
+    @Test
+    public void testSnapshot() {
+
+        SpawnedNpcs spawned = new SpawnedNpcs();
+        Entity entity = entity(30);
+        Npc npc = mock(Npc.class);
+
+        Npc[] empty = spawned.snapshot();
+        assertEquals(0, empty.length);
+
+        spawned.put(entity, npc);
+
+        Npc[] snapshot = spawned.snapshot();
+        assertArrayEquals(new Npc[] { npc }, snapshot);
+
+        // not rebuilt until modified
+        assertSame(snapshot, spawned.snapshot());
+
+        int version = spawned.getVersion();
+        spawned.remove(entity);
+
+        assertTrue(spawned.getVersion() != version);
+        assertNotSame(snapshot, spawned.snapshot());
+        assertEquals(0, spawned.snapshot().length);
+    }
+
+    @Test
+    public void testClear() {
+
+        SpawnedNpcs spawned = new SpawnedNpcs();
+        Entity entity = entity(40);
+
+        spawned.put(entity, mock(Npc.class));
+        spawned.clear();
+
+        assertEquals(0, spawned.size());
+        assertFalse(spawned.mightContain(40));
+        assertNull(spawned.get(entity));
+    }
+
+    private static Entity entity(int id) {
+        Entity entity = mock(Entity.class);
+        when(entity.getEntityId()).thenReturn(id);
+        return entity;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BinaryNpcFormatTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        assertRoundTrip(false);
+    }
+
+    @Test
+    public void testCompressedRoundTrip() throws IOException {
+        assertRoundTrip(true);
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+
+        byte[] bytes = write(new ArrayList<NpcSnapshot>(0), false);
+
+        assertTrue(BinaryNpcFormat.isBinary(bytes));
+        assertEquals(0, BinaryNpcFormat.read(new ByteArrayInputStream(bytes)).size());
+    }
+
+    @Test
+    public void testIsBinary() {
+
+        assertFalse(BinaryNpcFormat.isBinary(new byte[0]));
+        assertFalse(BinaryNpcFormat.isBinary("npc:\n".getBytes()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadInvalidMagic() throws IOException {
+        BinaryNpcFormat.read(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 0, 1, 0 }));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadUnsupportedVersion() throws IOException {
+
+        byte[] bytes = write(new ArrayList<NpcSnapshot>(0), false);
+
+        // version is written after the magic number
+        bytes[4] = 0x7F;
+
+        BinaryNpcFormat.read(new ByteArrayInputStream(bytes));
+    }
+
+    private void assertRoundTrip(boolean isCompressed) throws IOException {
+
+        List<NpcSnapshot> snapshots = snapshots();
+
+        byte[] bytes = write(snapshots, isCompressed);
+
+        assertTrue(BinaryNpcFormat.isBinary(bytes));
+
+        List<NpcSnapshot> result = BinaryNpcFormat.read(new ByteArrayInputStream(bytes));
+
+        assertEquals(snapshots.size(), result.size());
+
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(snapshots.get(i).getLookupName(), result.get(i).getLookupName());
+            assertEquals(snapshots.get(i).getValues(), result.get(i).getValues());
+        }
+    }
+
+    private static byte[] write(List<NpcSnapshot> snapshots, boolean isCompressed) throws IOException {
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BinaryNpcFormat.write(snapshots, output, isCompressed);
+        return output.toByteArray();
+    }
+
+    static List<NpcSnapshot> snapshots() {
+
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("lookup", "guard");
+        first.put("name", "Guard \u00E9");
+        first.put("uuid", "5f0c1f2e-4b7a-4c56-9f4e-2c1b4f3c9a10");
+        first.put("type", "PLAYER");
+        first.put("traits.skin", "guard");
+        first.put("traits.names", Arrays.asList("equipment", "inventory"));
+        first.put("traits.data.Plugin.trait.count", 3);
+        first.put("traits.data.Plugin.trait.range", 12.5D);
+        first.put("traits.data.Plugin.trait.enabled", true);
+
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("lookup", "dotted.name");
+        second.put("name", "Dotted");
+        second.put("traits.data.Plugin.trait.time", 1234567890123L);
+        second.put("traits.data.Plugin.trait.speed", 0.5F);
+        second.put("traits.data.Plugin.trait.empty", new ArrayList<>(0));
+
+        List<NpcSnapshot> snapshots = new ArrayList<>(2);
+        snapshots.add(new NpcSnapshot("guard", 0, first));
+        snapshots.add(new NpcSnapshot("dotted.name", 0, second));
+
+        return snapshots;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.storage;
+
+import com.jcwhatever.nucleus.providers.citizensnpc.Msg;
+import com.jcwhatever.nucleus.providers.citizensnpc.Npc;
+import com.jcwhatever.nucleus.providers.citizensnpc.Registry;
+import com.jcwhatever.nucleus.utils.PreCon;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compares save and load times of the YAML and binary NPC file formats
+ * using the NPC's of a registry.
+ *
+ * <p>Results are written to the console. Must be run on the main thread
+ * since NPC snapshots are captured from live NPC's.</p>
+ */
+public class NpcStorageBenchmark {
+
+    private NpcStorageBenchmark() {}
+
+    /**
+     * Run the benchmark.
+     *
+     * @param registry    The registry whose NPC's are used as the test data.
+     * @param folder      The folder to write temporary test files to.
+     * @param iterations  The number of times each operation is timed.
+     *
+     * @throws IOException
+     */
+    public static void run(Registry registry, File folder, int iterations) throws IOException {
+        PreCon.notNull(registry);
+        PreCon.notNull(folder);
+        PreCon.greaterThanZero(iterations);
+
+        Collection<Npc> npcs = registry.getNpcs();
+        List<NpcSnapshot> snapshots = new ArrayList<>(npcs.size());
+
+        long start = System.nanoTime();
+        for (Npc npc : npcs) {
+            snapshots.add(NpcSnapshot.capture(npc));
+        }
+        long captureTime = System.nanoTime() - start;
+
+        Msg.info("Npc storage benchmark: {0} Npc's, {1} iterations. Snapshot capture: {2}ms",
+                snapshots.size(), iterations, captureTime / 1000000);
+
+        test(folder, snapshots, iterations, NpcFileFormat.YAML, false);
+        test(folder, snapshots, iterations, NpcFileFormat.YAML, true);
+        test(folder, snapshots, iterations, NpcFileFormat.BINARY, false);
+        test(folder, snapshots, iterations, NpcFileFormat.BINARY, true);
+    }
+
+    private static void test(File folder, List<NpcSnapshot> snapshots, int iterations,
+                             NpcFileFormat format, boolean isCompressed) throws IOException {
+
+        File file = new File(folder, "npc-benchmark." + format.name().toLowerCase()
+                + (isCompressed ? ".gz" : ""));
+
+        long saveTime = 0;
+        long loadTime = 0;
+
+        try {
+            for (int i = 0; i < iterations; i++) {
+
+                long start = System.nanoTime();
+                NpcFiles.write(file, snapshots, format, isCompressed);
+                saveTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                List<NpcSnapshot> loaded = NpcFiles.read(file);
+                loadTime += System.nanoTime() - start;
+
+                if (loaded.size() != snapshots.size()) {
+                    throw new IOException("Benchmark file Npc count mismatch. Expected "
+                            + snapshots.size() + ", read " + loaded.size());
+                }
+            }
+
+            Msg.info("{0}{1}: save {2}ms, load {3}ms, size {4} bytes",
+                    format.name(), isCompressed ? " (gzip)" : "",
+                    saveTime / iterations / 1000000, loadTime / iterations / 1000000,
+                    file.length());
+        }
+        finally {
+            if (file.exists() && !file.delete())
+                file.deleteOnExit();
+        }
+    }
+}
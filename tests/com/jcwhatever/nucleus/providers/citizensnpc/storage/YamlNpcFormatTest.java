@@ -0,0 +1,99 @@
+/*
+ * This file is part of CitizensNpcProvider for NucleusFramework, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) JCThePants (www.jcwhatever.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jcwhatever.nucleus.providers.citizensnpc.storage;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class YamlNpcFormatTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("lookup", "guard");
+        first.put("name", "Guard");
+        first.put("type", "PLAYER");
+        first.put("traits.skin", "guard");
+        first.put("traits.names", Arrays.asList("equipment", "inventory"));
+        first.put("traits.data.Plugin.trait.count", 3);
+        first.put("traits.data.Plugin.trait.range", 12.5D);
+        first.put("traits.data.Plugin.trait.enabled", true);
+
+        // lookup names that contain the default path separator
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("lookup", "dotted.name");
+        second.put("name", "Dotted");
+        second.put("traits.skin", "dotted");
+
+        List<NpcSnapshot> snapshots = new ArrayList<>(2);
+        snapshots.add(new NpcSnapshot("guard", 0, first));
+        snapshots.add(new NpcSnapshot("dotted.name", 0, second));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        YamlNpcFormat.write(snapshots, output);
+
+        List<NpcSnapshot> result = YamlNpcFormat.read(new ByteArrayInputStream(output.toByteArray()));
+
+        assertEquals(2, result.size());
+
+        Map<String, NpcSnapshot> byName = new HashMap<>(2);
+        for (NpcSnapshot snapshot : result) {
+            byName.put(snapshot.getLookupName(), snapshot);
+        }
+
+        assertEquals(first, byName.get("guard").getValues());
+        assertEquals(second, byName.get("dotted.name").getValues());
+    }
+
+    @Test
+    public void testReadRegistryLayout() throws IOException {
+
+        // layout produced by saving a registry to a YAML data node
+        String yaml = "guard:\n" +
+                "  lookup: guard\n" +
+                "  name: Guard\n" +
+                "  traits:\n" +
+                "    skin: guard\n";
+
+        List<NpcSnapshot> result = YamlNpcFormat.read(new ByteArrayInputStream(yaml.getBytes("UTF-8")));
+
+        assertEquals(1, result.size());
+        assertEquals("guard", result.get(0).getLookupName());
+        assertEquals("guard", result.get(0).getValues().get("traits.skin"));
+        assertEquals("Guard", result.get(0).getValues().get("name"));
+    }
+}